@@ -0,0 +1,110 @@
+package com.example.cms_quanlyhethong.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/*
+    Gioi han so request dang xu ly cung luc, tu dieu chinh theo do tre (AIMD, giong dieu khien nghen cua TCP)
+    - Request xong nhanh hon target-latency va dang dung >= 1/2 gioi han → tang cong (+1 sau khoang limit request)
+    - Request cham hon target-latency → giam nhan (x backoff-ratio), toi da 1 lan moi target-latency
+      (1 dot request cham cung luc chi tinh 1 lan, khong dap gioi han ve min ngay)
+    - Dat gioi han → tryAcquire tra false ngay, khong xep hang (tra 503 nhanh thay vi cho connection DB)
+    tryAcquire / release khong khoa; cap nhat gioi han trong synchronized (nhe, 1 lan / request)
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final double backoffRatio;
+    private final LongSupplier clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Phan nguyen = gioi han hien tai; doc khong khoa
+    private volatile double limit;
+    private long lastDecrease;
+
+    public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit,
+                                    long targetLatencyMs, double backoffRatio) {
+        this(name, initialLimit, minLimit, maxLimit, targetLatencyMs, backoffRatio, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit,
+                             long targetLatencyMs, double backoffRatio, LongSupplier clock) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new RuntimeException("Cấu hình giới hạn đồng thời không hợp lệ: " + name);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.backoffRatio = backoffRatio;
+        this.clock = clock;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.lastDecrease = clock.getAsLong() - targetNanos;
+    }
+
+    /*
+    Gioi han co dinh (min = max): do tre khong lam doi gioi han, chi dung de cat tai
+    retryAfterMs: goi y Retry-After khi bi tu choi
+     */
+    public static AdaptiveConcurrencyLimit fixed(String name, int limit, long retryAfterMs) {
+        return new AdaptiveConcurrencyLimit(name, limit, limit, limit, retryAfterMs, 0.5);
+    }
+
+    /*
+    Giu 1 cho neu con duoi gioi han; true → phai goi release(...) dung 1 lan
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /*
+    Tra cho + cap nhat gioi han theo thoi gian xu ly cua request
+     */
+    public void release(long latencyNanos) {
+        int before = inFlight.getAndDecrement();
+        update(latencyNanos, before);
+    }
+
+    private synchronized void update(long latencyNanos, int inFlightBefore) {
+        double current = limit;
+        if (latencyNanos > targetNanos) {
+            long now = clock.getAsLong();
+            if (now - lastDecrease >= targetNanos) {
+                lastDecrease = now;
+                limit = Math.max(minLimit, current * backoffRatio);
+            }
+        } else if (inFlightBefore * 2 >= current) {
+            // Chi tang khi dang dung that: tai nhe thi gioi han khong troi len vo han
+            limit = Math.min(maxLimit, current + 1.0 / current);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    // Goi y Retry-After: khoang 1 target-latency (lam tron len giay, toi thieu 1)
+    public long getRetryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(targetNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.cms_quanlyhethong.config;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * ============================================
+ * THREAD POOL CHO CÔNG VIỆC NẶNG CPU
+ * ============================================
+ *
+ * BCrypt tốn nhiều CPU (hàng chục ms / lần).
+ * Gom vào 1 pool có giới hạn = số core để:
+ * - Không chiếm hết thread của Tomcat
+ * - Không tạo quá nhiều thread tranh CPU
+ *
+ * Hàng đợi đầy → từ chối ngay (AbortPolicy), không để thread gọi tự hash
+ * → số BCrypt chạy cùng lúc không bao giờ vượt quá số core
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            @Value("${security.password.hash-queue-capacity:1000}") int queueCapacity) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cores);
+        executor.setMaxPoolSize(cores);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pwd-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(mdcPropagating());
+        executor.initialize();
+        return executor;
+    }
+
+    // Mang MDC (requestId) cua thread goi sang thread cua pool → log trong pool van biet thuoc request nao
+    private static TaskDecorator mdcPropagating() {
+        return task -> {
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            return () -> {
+                Map<String, String> previous = MDC.getCopyOfContextMap();
+                if (context == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(context);
+                }
+                try {
+                    task.run();
+                } finally {
+                    if (previous == null) {
+                        MDC.clear();
+                    } else {
+                        MDC.setContextMap(previous);
+                    }
+                }
+            };
+        };
+    }
+}
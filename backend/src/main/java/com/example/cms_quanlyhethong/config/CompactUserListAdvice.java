@@ -0,0 +1,75 @@
+package com.example.cms_quanlyhethong.config;
+
+import com.example.cms_quanlyhethong.controller.UserController;
+import com.example.cms_quanlyhethong.dto.response.common.PageResponse;
+import com.example.cms_quanlyhethong.dto.response.user.UserResponse;
+import com.example.cms_quanlyhethong.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.List;
+
+/**
+ * ============================================
+ * DANH SÁCH USER DẠNG NHỊ PHÂN (SMILE / CBOR)
+ * ============================================
+ *
+ * Client gửi Accept: application/x-jackson-smile hoặc application/cbor
+ * → Spring chọn converter Smile / CBOR (có sẵn khi thư viện nằm trên classpath).
+ *
+ * Với danh sách user (List hoặc PageResponse của UserResponse), trước khi ghi:
+ * - Gom các role thành 1 từ điển (mỗi role 1 lần)
+ * - Mỗi user chỉ giữ roleIds
+ *
+ * JSON (frontend hiện tại) giữ nguyên dạng cũ, không bị ảnh hưởng
+ */
+@ControllerAdvice(assignableTypes = UserController.class)
+@RequiredArgsConstructor
+public class CompactUserListAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private final UserMapper userMapper;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!isBinary(selectedContentType)) {
+            return body;
+        }
+        if (body instanceof List<?> list && allUsers(list)) {
+            return userMapper.toCompactList((List<UserResponse>) list);
+        }
+        if (body instanceof PageResponse<?> page && page.getContent() != null && allUsers(page.getContent())) {
+            return userMapper.toCompactPage((PageResponse<UserResponse>) page);
+        }
+        return body;
+    }
+
+    private static boolean isBinary(MediaType mediaType) {
+        return mediaType != null
+                && (SMILE.isCompatibleWith(mediaType) || MediaType.APPLICATION_CBOR.isCompatibleWith(mediaType));
+    }
+
+    private static boolean allUsers(List<?> list) {
+        for (Object item : list) {
+            if (!(item instanceof UserResponse)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.cms_quanlyhethong.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * ============================================
+ * CẮT TẢI THEO SỐ REQUEST ĐỒNG THỜI
+ * ============================================
+ *
+ * Tomcat nhận nhiều request hơn số connection Hikari → thread xếp hàng chờ DB, độ trễ của mọi người tăng vọt.
+ * Filter này (nằm trong chuỗi filter của SecurityConfig, sau CORS) giới hạn số request đang xử lý theo nhóm:
+ * - AUTH: /api/auth/** (BCrypt, chậm sẵn)
+ * - READ: GET / HEAD
+ * - WRITE: POST / PUT / PATCH / DELETE
+ * - BULK: export / import / gán role hàng loạt — luôn chạy lâu (stream cả bảng, đọc cả file)
+ * AUTH / READ / WRITE: mỗi nhóm 1 AdaptiveConcurrencyLimit riêng (AIMD theo độ trễ đo được)
+ * → login dồn dập không chặn đọc / ghi.
+ * BULK: giới hạn cố định, tách riêng → 1 lần export / import chậm không kéo giới hạn của request thường xuống.
+ *
+ * Vượt giới hạn → 503 ngay + Retry-After, không chờ → p99 của request được nhận vẫn giữ được.
+ * OPTIONS (CORS preflight) và /actuator/** không bị giới hạn.
+ *
+ * Metric: http.server.concurrency.limit / inflight {group}, http.server.requests.shed {group}
+ */
+@Slf4j
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public enum Group { AUTH, READ, WRITE, BULK }
+
+    private final boolean enabled;
+    private final Map<Group, AdaptiveConcurrencyLimit> limits = new EnumMap<>(Group.class);
+    private final Map<Group, Counter> shed = new EnumMap<>(Group.class);
+
+    @Autowired
+    public ConcurrencyLimitFilter(
+            MeterRegistry meterRegistry,
+            @Value("${http.concurrency.enabled:true}") boolean enabled,
+            @Value("${http.concurrency.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${http.concurrency.auth.initial:8}") int authInitial,
+            @Value("${http.concurrency.auth.min:2}") int authMin,
+            @Value("${http.concurrency.auth.max:64}") int authMax,
+            @Value("${http.concurrency.auth.target-latency-ms:1000}") long authTargetMs,
+            @Value("${http.concurrency.read.initial:20}") int readInitial,
+            @Value("${http.concurrency.read.min:4}") int readMin,
+            @Value("${http.concurrency.read.max:200}") int readMax,
+            @Value("${http.concurrency.read.target-latency-ms:250}") long readTargetMs,
+            @Value("${http.concurrency.write.initial:10}") int writeInitial,
+            @Value("${http.concurrency.write.min:2}") int writeMin,
+            @Value("${http.concurrency.write.max:100}") int writeMax,
+            @Value("${http.concurrency.write.target-latency-ms:500}") long writeTargetMs,
+            @Value("${http.concurrency.bulk.limit:2}") int bulkLimit,
+            @Value("${http.concurrency.bulk.retry-after-ms:30000}") long bulkRetryAfterMs) {
+        this(meterRegistry, enabled,
+                new AdaptiveConcurrencyLimit("auth", authInitial, authMin, authMax, authTargetMs, backoffRatio),
+                new AdaptiveConcurrencyLimit("read", readInitial, readMin, readMax, readTargetMs, backoffRatio),
+                new AdaptiveConcurrencyLimit("write", writeInitial, writeMin, writeMax, writeTargetMs, backoffRatio),
+                AdaptiveConcurrencyLimit.fixed("bulk", bulkLimit, bulkRetryAfterMs));
+    }
+
+    ConcurrencyLimitFilter(MeterRegistry meterRegistry, boolean enabled, AdaptiveConcurrencyLimit auth,
+                           AdaptiveConcurrencyLimit read, AdaptiveConcurrencyLimit write,
+                           AdaptiveConcurrencyLimit bulk) {
+        this.enabled = enabled;
+        limits.put(Group.AUTH, auth);
+        limits.put(Group.READ, read);
+        limits.put(Group.WRITE, write);
+        limits.put(Group.BULK, bulk);
+        for (Map.Entry<Group, AdaptiveConcurrencyLimit> entry : limits.entrySet()) {
+            AdaptiveConcurrencyLimit limit = entry.getValue();
+            String group = limit.getName();
+            Gauge.builder("http.server.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Số request đồng thời tối đa hiện tại (tự điều chỉnh theo độ trễ)")
+                    .tag("group", group)
+                    .register(meterRegistry);
+            Gauge.builder("http.server.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Số request đang xử lý")
+                    .tag("group", group)
+                    .register(meterRegistry);
+            shed.put(entry.getKey(), Counter.builder("http.server.requests.shed")
+                    .description("Số request bị từ chối 503 do vượt giới hạn đồng thời")
+                    .tag("group", group)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || HttpMethod.OPTIONS.matches(request.getMethod())
+                || request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Group group = groupOf(request);
+        AdaptiveConcurrencyLimit limit = limits.get(group);
+        if (!limit.tryAcquire()) {
+            shed.get(group).increment();
+            log.debug("Cắt tải {} {}: nhóm {} đang đủ {} request", request.getMethod(), request.getRequestURI(),
+                    limit.getName(), limit.getLimit());
+            reject(response, limit);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+
+    AdaptiveConcurrencyLimit limitOf(Group group) {
+        return limits.get(group);
+    }
+
+    static Group groupOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/")) {
+            return Group.AUTH;
+        }
+        if (isBulk(path)) {
+            return Group.BULK;
+        }
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) ? Group.READ : Group.WRITE;
+    }
+
+    // /api/users/export, /api/students/export, /api/students/import, /api/users/roles/bulk
+    private static boolean isBulk(String path) {
+        return (path.startsWith("/api/users/") || path.startsWith("/api/students/"))
+                && (path.endsWith("/export") || path.endsWith("/import") || path.endsWith("/roles/bulk"));
+    }
+
+    private static void reject(HttpServletResponse response, AdaptiveConcurrencyLimit limit) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limit.getRetryAfterSeconds()));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("Máy chủ đang quá tải, vui lòng thử lại sau");
+    }
+}
@@ -49,9 +49,14 @@ public class CorsConfig {
                 "Content-Type",       // Để gửi JSON
                 "X-Requested-With",
                 "Accept",
-                "Origin"
+                "Origin",
+                RequestCorrelationFilter.HEADER,  // Nối log frontend ↔ backend
+                "If-None-Match"                   // Conditional GET (ETag)
         ));
 
+        // Cho JS đọc được request id / ETag trong response
+        configuration.setExposedHeaders(Arrays.asList(RequestCorrelationFilter.HEADER, "ETag", "Retry-After"));
+
         // 4. Cho phép gửi credentials (cookies, authorization headers)
         configuration.setAllowCredentials(true);
 
@@ -0,0 +1,89 @@
+package com.example.cms_quanlyhethong.config;
+
+import com.example.cms_quanlyhethong.entity.PooledSequenceGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * ============================================
+ * CHUYỂN ID TỪ IDENTITY SANG POOLED SEQUENCE
+ * ============================================
+ *
+ * Bảng cũ đã có dữ liệu với id AUTO_INCREMENT. Trên MySQL, Hibernate tạo bảng
+ * users_seq / students_seq / roles_seq (cột next_val) bắt đầu từ 1 → sẽ cấp trùng id cũ.
+ *
+ * Chạy 1 lần mỗi lần khởi động (sau khi Hibernate cập nhật schema, trước khi nhận request):
+ * - next_val &lt; MAX(id) + allocation-size → đẩy next_val lên (pooled cấp id trong (next_val - size, next_val])
+ * - Đã đủ lớn → không làm gì (chạy lại nhiều lần / nhiều node cùng lúc vẫn an toàn)
+ *
+ * DB có sequence thật (H2, PostgreSQL, ...) không có bảng *_seq → bỏ qua
+ */
+@Slf4j
+@Component
+public class IdSequenceMigration {
+
+    private record Target(String table, String sequenceTable) {
+    }
+
+    private static final List<Target> TARGETS = List.of(
+            new Target("users", "users_seq"),
+            new Target("students", "students_seq"),
+            new Target("roles", "roles_seq"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int allocationSize;
+
+    // EntityManagerFactory: chỉ để chắc chắn Hibernate đã tạo / cập nhật bảng trước khi migrate
+    public IdSequenceMigration(JdbcTemplate jdbcTemplate,
+                               EntityManagerFactory entityManagerFactory,
+                               @Value("${spring.jpa.properties." + PooledSequenceGenerator.ALLOCATION_SIZE_SETTING + ":"
+                                       + PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE + "}") int allocationSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.allocationSize = allocationSize;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        for (Target target : TARGETS) {
+            if (!tableExists(target.sequenceTable())) {
+                continue;
+            }
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + target.table(), Long.class);
+            long floor = (maxId == null ? 0 : maxId) + allocationSize;
+            int updated = jdbcTemplate.update(
+                    "UPDATE " + target.sequenceTable() + " SET next_val = ? WHERE next_val < ?", floor, floor);
+            Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + target.sequenceTable(), Integer.class);
+            if (rows != null && rows == 0) {
+                jdbcTemplate.update("INSERT INTO " + target.sequenceTable() + " (next_val) VALUES (?)", floor);
+                updated = 1;
+            }
+            if (updated > 0) {
+                log.info("Đã đẩy {}.next_val lên {} (MAX(id) của {} = {})",
+                        target.sequenceTable(), floor, target.table(), maxId);
+            }
+        }
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet rs = meta.getTables(con.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (rs.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.cms_quanlyhethong.config;
 
+import com.example.cms_quanlyhethong.service.UserStatusRegistry;
 import com.example.cms_quanlyhethong.until.JwtUntil;
+import com.example.cms_quanlyhethong.until.VerifiedToken;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -15,53 +18,61 @@ import java.io.IOException;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Component
     public class JwtAuthenticationFilter implements Filter  {
+    private final JwtUntil jwtUntil;
+    private final UserStatusRegistry userStatusRegistry;
+
     @Autowired
-    private JwtUntil jwtUntil;
+    public JwtAuthenticationFilter(JwtUntil jwtUntil, UserStatusRegistry userStatusRegistry) {
+        this.jwtUntil = jwtUntil;
+        this.userStatusRegistry = userStatusRegistry;
+    }
+
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
         throws ServletException, IOException {
         HttpServletRequest httpRequest = (HttpServletRequest) request;   //cast servletrequest thanh httpservletrequest
         HttpServletResponse httpResponse = (HttpServletResponse) response;
         // lay token Header tu "Authozation"
         String authHeader = httpRequest.getHeader("Authorization");
-        String token = null;
-        String username = null;
+        VerifiedToken verified = null;
         // kiem tra header co chưa Bearer khong
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.replace("Bearer ", "");
-            try {
-                //  Lấy username từ token
-                username = jwtUntil.getUsernameFromToken(token);
-            } catch (Exception e) {
-                System.out.println("Token không hợp lệ: " + e.getMessage());
+            String token = authHeader.substring(7);
+            //  Parse + verify token 1 lần (có cache), lấy username, roles, hạn dùng
+            verified = jwtUntil.verifyToken(token);
+            if (verified == null) {
+                log.debug("Token không hợp lệ");
+            }
+            // Tài khoản bị khóa / xóa / đổi mật khẩu, role → version đã tăng, token cũ bị thu hồi (không query DB)
+            else if (!userStatusRegistry.isCurrent(verified.getUsername(), verified.getStatusVersion())) {
+                log.debug("Token đã bị thu hồi: {}", verified.getUsername());
+                verified = null;
             }
         }
-        // BƯỚC 4: Nếu có username và chưa được xác thực
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-            // BƯỚC 5: Validate token
-            if (jwtUntil.validateToken(token) && !jwtUntil.isTokenExpired(token)) {
+        // BƯỚC 4: Nếu token hợp lệ và chưa được xác thực
+        if (verified != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String username = verified.getUsername();
 
-                // BƯỚC 6: Lấy roles từ token
-                Set<String> roles = jwtUntil.getRoleFromToken(token);
+            // BƯỚC 6: Lấy roles từ token (đã parse sẵn)
+            Set<String> roles = verified.getRoles();
 
-                // BƯỚC 7: Chuyển roles thành authorities (thêm prefix "ROLE_")
-                Set<SimpleGrantedAuthority> authorities = roles.stream()
-                        .map(role -> new SimpleGrantedAuthority( role))
-                        .collect(Collectors.toSet());
+            // BƯỚC 7: Chuyển roles thành authorities (thêm prefix "ROLE_")
+            Set<SimpleGrantedAuthority> authorities = roles.stream()
+                    .map(role -> new SimpleGrantedAuthority( role))
+                    .collect(Collectors.toSet());
 
-                // BƯỚC 8: Tạo Authentication object
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(username, null, authorities);
+            // BƯỚC 8: Tạo Authentication object
+            UsernamePasswordAuthenticationToken authentication =
+                    new UsernamePasswordAuthenticationToken(username, null, authorities);
 
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpRequest));
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpRequest));
 
-                // BƯỚC 9: Set authentication vào SecurityContext
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            // BƯỚC 9: Set authentication vào SecurityContext
+            SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                System.out.println("User authenticated: " + username + ", Roles: " + roles);
-            }
+            log.debug("User authenticated: {}, Roles: {}", username, roles);
         }
 
         // BƯỚC 10: Cho request đi tiếp
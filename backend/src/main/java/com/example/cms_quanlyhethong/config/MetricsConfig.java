@@ -0,0 +1,64 @@
+package com.example.cms_quanlyhethong.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * ============================================
+ * METRICS (MICROMETER → PROMETHEUS)
+ * ============================================
+ *
+ * Scrape: GET http://127.0.0.1:8081/actuator/prometheus (chỉ nghe trên localhost)
+ *
+ * - http.server.requests: histogram độ trễ, thêm tag handler = Controller#method
+ * - hibernate.statements.per.request: số câu SQL Hibernate chạy trong 1 request
+ * - jwt.verify / security.password: timer trong JwtUntil, OffloadingPasswordEncoder
+ * - hibernate.* (entity load, flush, ...) và hikaricp.* (pool): Spring Boot tự gắn
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final String NO_HANDLER = "none";
+
+    @Bean
+    public ServerRequestObservationConvention handlerTaggingObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context)
+                        .and(KeyValue.of("handler", handlerName(context.getCarrier())));
+            }
+        };
+    }
+
+    // Dem cau SQL theo request: Hibernate goi inspector truoc moi cau SQL, StatementsPerRequestFilter mo / dong bo dem
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+    }
+
+    /*
+    Ten controller method da xu ly request, vd "StudentController#getStudentById"
+    Chi co sau khi DispatcherServlet chon handler (404 / bi Security chan → "none")
+     */
+    static String handlerName(HttpServletRequest request) {
+        if (request == null) {
+            return NO_HANDLER;
+        }
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "#" + method.getMethod().getName();
+        }
+        return NO_HANDLER;
+    }
+}
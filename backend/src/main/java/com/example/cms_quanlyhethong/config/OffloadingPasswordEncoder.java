@@ -0,0 +1,125 @@
+package com.example.cms_quanlyhethong.config;
+
+import com.example.cms_quanlyhethong.until.BCryptCost;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ============================================
+ * PASSWORD ENCODER CHẠY BCRYPT TRÊN POOL RIÊNG
+ * ============================================
+ *
+ * VẤN ĐỀ:
+ * - BCrypt tốn CPU, chạy thẳng trên thread của Tomcat
+ * - Nhiều request login cùng lúc → chiếm hết CPU / thread → API khác bị chậm theo
+ *
+ * GIẢI PHÁP:
+ * - encode / matches được đẩy sang passwordHashExecutor (số thread = số core)
+ * - Thread gọi chỉ chờ kết quả (với virtual thread thì chờ gần như miễn phí)
+ * - Hàng đợi đầy → BusyException ngay thay vì xếp hàng vô hạn (controller trả 503 + Retry-After)
+ *
+ * Metrics: security.password (op = encode / matches), tính cả thời gian chờ trong hàng đợi
+ *
+ * bcryptCost: cost đang dùng (hiệu chỉnh lúc khởi động), hash lưu với cost thấp hơn → upgradeEncoding = true
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    /*
+    Pool BCrypt day: loi tam thoi cua server, khong phai loi du lieu cua client
+    Client doi retryAfterSeconds giay roi thu lai (1 lan BCrypt chi vai tram ms → hang doi thoat nhanh)
+     */
+    public static class BusyException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterSeconds;
+
+        public BusyException(long retryAfterSeconds) {
+            super("Hệ thống đang bận, vui lòng thử lại sau");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    private static final long BUSY_RETRY_AFTER_SECONDS = 1;
+
+    private final PasswordEncoder delegate;
+    private final int bcryptCost;
+    private final Executor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, int bcryptCost, Executor executor,
+                                     MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.bcryptCost = bcryptCost;
+        this.executor = executor;
+        this.encodeTimer = timer(meterRegistry, "encode");
+        this.matchesTimer = timer(meterRegistry, "matches");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return offload(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return offload(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Thấp hơn cost hiện tại → nên hash lại khi biết mật khẩu gốc (lúc đăng nhập đúng)
+    // Cao hơn thì giữ nguyên: node đo ra cost thấp (máy yếu, khởi động lúc máy bận) không được hạ độ mạnh của hash
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int stored = BCryptCost.of(encodedPassword);
+        return stored > 0 && stored < bcryptCost;
+    }
+
+    public int getBcryptCost() {
+        return bcryptCost;
+    }
+
+    // Dùng cho xử lý hàng loạt: gửi nhiều việc hash rồi join sau
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> delegate.encode(rawPassword), executor);
+        } catch (RejectedExecutionException e) {
+            throw new BusyException(BUSY_RETRY_AFTER_SECONDS);
+        }
+    }
+
+    private <T> T offload(Timer timer, Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(task, executor).join();
+        } catch (RejectedExecutionException e) {
+            throw new BusyException(BUSY_RETRY_AFTER_SECONDS);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String op) {
+        return Timer.builder("security.password")
+                .description("Thời gian encode / matches mật khẩu (gồm chờ pool BCrypt)")
+                .tag("op", op)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.cms_quanlyhethong.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.pool.HikariPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * ============================================
+ * ĐỌC TỪ REPLICA, GHI VÀO PRIMARY
+ * ============================================
+ *
+ * Dựa trên LazyConnectionDataSourceProxy: connection thật chỉ lấy ở câu SQL đầu tiên,
+ * lúc đó transaction đã gọi setReadOnly → biết đi đâu:
+ * - @Transactional(readOnly = true) (kể cả method đọc mặc định của Spring Data) → 1 replica
+ * - Còn lại → primary
+ *
+ * Chọn replica: ROUND_ROBIN (lần lượt) hoặc LEAST_CONNECTIONS (pool ít connection đang dùng nhất)
+ * Replica lỗi khi lấy connection → bỏ qua replica đó down-ms; không còn replica nào → đọc từ primary
+ *
+ * Đọc ngay sau khi ghi (replica trễ vài ms - vài giây):
+ * transaction ghi commit xong → user đó (và thread đó) đọc từ primary thêm sticky-ms
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    public enum Strategy { ROUND_ROBIN, LEAST_CONNECTIONS }
+
+    // Qua nguong nay moi quet bo entry het han (user ghi xong khong doc lai thi entry khong tu mat)
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final Strategy strategy;
+    private final long stickyNanos;
+    private final long downNanos;
+    private final LongSupplier clock;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLongArray downUntil;
+    // username → thoi diem het sticky (nanoTime)
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> threadStickyUntil = new ThreadLocal<>();
+
+    private final List<Counter> replicaReads = new ArrayList<>();
+    private final Counter stickyReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Strategy strategy,
+                                    long stickyMs, long downMs, MeterRegistry meterRegistry) {
+        this(primary, replicas, strategy, stickyMs, downMs, meterRegistry, System::nanoTime);
+    }
+
+    ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Strategy strategy,
+                             long stickyMs, long downMs, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.strategy = strategy;
+        this.stickyNanos = TimeUnit.MILLISECONDS.toNanos(stickyMs);
+        this.downNanos = TimeUnit.MILLISECONDS.toNanos(downMs);
+        this.clock = clock;
+        this.downUntil = new AtomicLongArray(this.replicas.size());
+        for (HikariDataSource replica : this.replicas) {
+            replicaReads.add(readCounter(meterRegistry, replica.getPoolName()));
+        }
+        this.stickyReads = readCounter(meterRegistry, "primary-sticky");
+        this.fallbackReads = readCounter(meterRegistry, "primary-fallback");
+        setTargetDataSource(new WriteTarget(primary));
+        setReadOnlyDataSource(new ReadTarget());
+        afterPropertiesSet();
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.reads")
+                .description("So connection cho transaction readOnly theo noi duoc chon")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    /*
+    Dong pool primary va cac replica (Spring goi khi dong context)
+     */
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+    // Connection doc: replica theo strategy, bo qua replica dang down, het thi ve primary
+    private Connection readConnection() throws SQLException {
+        if (isSticky()) {
+            stickyReads.increment();
+            return primary.getConnection();
+        }
+        int size = replicas.size();
+        if (size > 0) {
+            int start = strategy == Strategy.LEAST_CONNECTIONS ? leastBusy() : Math.floorMod(next.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                int index = (start + i) % size;
+                long now = clock.getAsLong();
+                if (downUntil.get(index) - now > 0) {
+                    continue;
+                }
+                try {
+                    Connection connection = replicas.get(index).getConnection();
+                    replicaReads.get(index).increment();
+                    return connection;
+                } catch (SQLException | HikariPool.PoolInitializationException e) {
+                    downUntil.set(index, now + downNanos);
+                    log.warn("Replica {} không lấy được connection, bỏ qua {} ms: {}",
+                            replicas.get(index).getPoolName(), TimeUnit.NANOSECONDS.toMillis(downNanos), e.getMessage());
+                }
+            }
+        }
+        fallbackReads.increment();
+        return primary.getConnection();
+    }
+
+    // Replica dang dung it connection nhat; bang nhau thi xoay vong diem bat dau → khong don het vao replica dau
+    private int leastBusy() {
+        int size = replicas.size();
+        int offset = Math.floorMod(next.getAndIncrement(), size);
+        long now = clock.getAsLong();
+        int best = offset;
+        int bestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int index = (offset + i) % size;
+            if (downUntil.get(index) - now > 0) {
+                continue;
+            }
+            HikariPoolMXBean pool = replicas.get(index).getHikariPoolMXBean();
+            int active = pool == null ? 0 : pool.getActiveConnections();
+            if (active < bestActive) {
+                best = index;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    private boolean isSticky() {
+        long now = clock.getAsLong();
+        Long threadUntil = threadStickyUntil.get();
+        if (threadUntil != null && threadUntil - now > 0) {
+            return true;
+        }
+        String username = currentUsername();
+        if (username == null) {
+            return false;
+        }
+        Long until = recentWriters.get(username);
+        if (until == null) {
+            return false;
+        }
+        if (until - now > 0) {
+            return true;
+        }
+        recentWriters.remove(username, until);
+        return false;
+    }
+
+    /*
+    Ghi nhan 1 transaction ghi vua commit: thread hien tai + user dang dang nhap doc tu primary them sticky-ms
+     */
+    void markWritten(String username) {
+        long now = clock.getAsLong();
+        long until = now + stickyNanos;
+        threadStickyUntil.set(until);
+        if (username == null) {
+            return;
+        }
+        recentWriters.put(username, until);
+        if (recentWriters.size() > PRUNE_THRESHOLD) {
+            recentWriters.values().removeIf(value -> value - now <= 0);
+        }
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /*
+    Primary cho transaction ghi: dang ky ghi nhan sau commit
+    (connection lay o cau SQL dau tien → transaction da bat dau, synchronization da active)
+     */
+    private final class WriteTarget extends DelegatingDataSource {
+
+        WriteTarget(HikariDataSource primary) {
+            super(primary);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (TransactionSynchronizationManager.isSynchronizationActive()
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                String username = currentUsername();
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    // Truoc cac listener sau commit (UserStatusRegistry, ...) → chung doc lai tu primary
+                    @Override
+                    public int getOrder() {
+                        return Ordered.HIGHEST_PRECEDENCE;
+                    }
+
+                    @Override
+                    public void afterCommit() {
+                        markWritten(username);
+                    }
+                });
+            }
+            return super.getConnection();
+        }
+    }
+
+    private final class ReadTarget extends DelegatingDataSource {
+
+        ReadTarget() {
+            super(primary);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return readConnection();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.cms_quanlyhethong.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * ============================================
+ * REQUEST ID (CORRELATION ID) CHO LOG
+ * ============================================
+ *
+ * Mỗi request có 1 mã riêng → lọc được toàn bộ log của 1 request trong file JSON.
+ *
+ * Luồng:
+ * 1. Client / gateway gửi X-Request-Id → dùng lại (để nối log giữa các service)
+ * 2. Không có / không hợp lệ → tự sinh UUID
+ * 3. Đặt vào MDC ("requestId") → mọi dòng log trong request đều có field requestId
+ * 4. Trả lại trong header X-Request-Id → frontend báo lỗi kèm mã này
+ *
+ * Chạy đầu tiên (trước Spring Security) để log của filter JWT cũng có requestId
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestCorrelationFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Request-Id";
+    public static final String MDC_KEY = "requestId";
+
+    // Chỉ nhận mã ngắn, ký tự an toàn → client không chèn được dòng log giả
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(HEADER);
+        if (requestId == null || !VALID_ID.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        MDC.put(MDC_KEY, requestId);
+        response.setHeader(HEADER, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+}
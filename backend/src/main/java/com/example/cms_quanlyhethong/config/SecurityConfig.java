@@ -1,6 +1,15 @@
    package com.example.cms_quanlyhethong.config;
 
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import com.example.cms_quanlyhethong.until.BCryptCost;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -16,6 +25,10 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -24,9 +37,60 @@ public class SecurityConfig {
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     @Autowired
     private CorsConfigurationSource corsConfigurationSource;
+    @Autowired
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
+    @Bean
+    public OffloadingPasswordEncoder passwordEncoder(@Qualifier("passwordHashExecutor") Executor passwordHashExecutor,
+                                                     MeterRegistry meterRegistry,
+                                                     UserRepository userRepository,
+                                                     @Value("${security.password.bcrypt.cost:0}") int fixedCost,
+                                                     @Value("${security.password.bcrypt.target-ms:100}") long targetMs,
+                                                     @Value("${security.password.bcrypt.min-cost:10}") int minCost,
+                                                     @Value("${security.password.bcrypt.max-cost:16}") int maxCost) {
+        // cost = 0 → đo trên máy đang chạy, chọn cost cao nhất mà 1 lần hash ≤ target-ms
+        BCryptCost.Calibration calibration = fixedCost > 0
+                ? new BCryptCost.Calibration(fixedCost, BCryptCost.measure(fixedCost))
+                : BCryptCost.calibrate(targetMs, minCost, maxCost);
+        // Không thấp hơn cost cao nhất đã lưu trong DB (dùng chung mọi node)
+        // → mọi node hội tụ về cùng 1 cost, không node nào hash lại xuống cost thấp hơn
+        if (fixedCost <= 0) {
+            int highestStored = highestStoredCost(userRepository, maxCost);
+            if (highestStored > calibration.cost()) {
+                log.info("BCrypt: đo được cost {} nhưng DB đã có hash cost {} → dùng {}",
+                        calibration.cost(), highestStored, highestStored);
+                calibration = calibration.atLeast(highestStored);
+            }
+        }
+        log.info("BCrypt cost = {} (1 lần hash ≈ {} ms, mục tiêu {} ms)",
+                calibration.cost(), String.format("%.1f", calibration.hashMillis()), targetMs);
+        Gauge.builder("security.password.bcrypt.cost", calibration::cost)
+                .description("Cost BCrypt đang dùng để hash mật khẩu mới")
+                .register(meterRegistry);
+        TimeGauge.builder("security.password.bcrypt.calibrated", calibration::hashMillis, TimeUnit.MILLISECONDS)
+                .description("Thời gian 1 lần hash đo được lúc khởi động với cost đang dùng")
+                .register(meterRegistry);
+        // BCrypt chạy trên pool riêng (số thread = số core), không chặn thread xử lý request
+        return new OffloadingPasswordEncoder(new BCryptPasswordEncoder(calibration.cost()), calibration.cost(),
+                passwordHashExecutor, meterRegistry);
+    }
+    private static int highestStoredCost(UserRepository userRepository, int maxCost) {
+        String stored = userRepository.findMaxBcryptCost();
+        if (stored == null) {
+            return -1;
+        }
+        try {
+            return Math.min(Integer.parseInt(stored), maxCost);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    // ConcurrencyLimitFilter chi chay trong chuoi Security (sau CORS → 503 van co header CORS),
+    // khong de Spring Boot dang ky them 1 lan nua o muc servlet
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(ConcurrencyLimitFilter filter) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
     }
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -49,10 +113,21 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/api/students/**").hasAnyAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/students/**").hasAnyAuthority("ROLE_ADMIN")
 
+                        // STATS (Dashboard)
+                        .requestMatchers(HttpMethod.GET, "/api/stats").hasAnyAuthority("ROLE_ADMIN", "ROLE_TEACHER")
+
+                        // Prometheus scrape: management port chỉ nghe trên 127.0.0.1
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+
+                        // ADMIN: đổi cấu hình log lúc đang chạy
+                        .requestMatchers("/api/admin/**").hasAnyAuthority("ROLE_ADMIN")
+
                         // Còn lại
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Cat tai truoc khi verify JWT / vao controller: qua gioi han dong thoi → 503 + Retry-After
+                .addFilterBefore(concurrencyLimitFilter, JwtAuthenticationFilter.class)
                 .httpBasic(basic -> basic.disable());
 
         return http.build();
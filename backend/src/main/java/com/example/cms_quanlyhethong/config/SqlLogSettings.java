@@ -0,0 +1,80 @@
+package com.example.cms_quanlyhethong.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ============================================
+ * LOG SQL THEO NGƯỠNG / LẤY MẪU
+ * ============================================
+ *
+ * Thay cho show-sql (in mọi câu SQL, đồng bộ, làm chậm mọi request):
+ * - Câu chạy lâu hơn slow-threshold-ms → luôn log (WARN)
+ * - Câu nhanh → chỉ log 1 phần theo sample-rate (INFO, 0 = không log, 1 = log tất cả)
+ *
+ * 2 giá trị đổi được lúc đang chạy (PUT /api/admin/logging/sql), không cần restart.
+ * Logger tên "sql" → có thể tắt hẳn bằng logging.level.sql=OFF
+ */
+@Component
+public class SqlLogSettings {
+
+    private static final Logger SQL_LOG = LoggerFactory.getLogger("sql");
+
+    // < 0: không log câu chậm
+    private volatile long slowThresholdMs;
+    private volatile double sampleRate;
+
+    public SqlLogSettings(@Value("${sql.log.slow-threshold-ms:500}") long slowThresholdMs,
+                          @Value("${sql.log.sample-rate:0}") double sampleRate) {
+        update(slowThresholdMs, sampleRate);
+    }
+
+    public long getSlowThresholdMs() {
+        return slowThresholdMs;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void update(Long slowThresholdMs, Double sampleRate) {
+        if (sampleRate != null && (sampleRate < 0 || sampleRate > 1)) {
+            throw new RuntimeException("sampleRate phải nằm trong [0, 1]: " + sampleRate);
+        }
+        if (slowThresholdMs != null) {
+            this.slowThresholdMs = slowThresholdMs;
+        }
+        if (sampleRate != null) {
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    /*
+    Goi sau moi lan execute (SqlTimingDataSource)
+    Duong nhanh: 1 phep so sanh + 1 so ngau nhien khi co lay mau
+     */
+    public void record(String sql, long elapsedNanos, int batchSize) {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        long threshold = slowThresholdMs;
+        if (threshold >= 0 && elapsedMs >= threshold) {
+            SQL_LOG.atWarn()
+                    .addKeyValue("durationMs", elapsedMs)
+                    .addKeyValue("batchSize", batchSize)
+                    .log("Slow SQL ({} ms): {}", elapsedMs, sql);
+            return;
+        }
+        double rate = sampleRate;
+        if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            SQL_LOG.atInfo()
+                    .addKeyValue("durationMs", elapsedMs)
+                    .addKeyValue("batchSize", batchSize)
+                    .addKeyValue("sampled", true)
+                    .log("SQL ({} ms): {}", elapsedMs, sql);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.cms_quanlyhethong.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/*
+    Boc DataSource cua Spring Boot bang SqlTimingDataSource (log SQL cham / lay mau)
+    sql.log.enabled=false → khong boc, khong ton chi phi proxy
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql.log.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlLoggingConfig {
+
+    // static: BeanPostProcessor phai tao truoc cac bean khac
+    @Bean
+    public static BeanPostProcessor sqlTimingDataSourcePostProcessor(ObjectProvider<SqlLogSettings> settings) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SqlTimingDataSource)) {
+                    return new SqlTimingDataSource(dataSource, settings.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
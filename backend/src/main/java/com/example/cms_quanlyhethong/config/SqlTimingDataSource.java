@@ -0,0 +1,139 @@
+package com.example.cms_quanlyhethong.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * ============================================
+ * ĐO THỜI GIAN TỪNG CÂU SQL
+ * ============================================
+ *
+ * Bọc DataSource (Hikari) → Connection → Statement bằng JDK proxy:
+ * - prepareStatement(sql) / prepareCall(sql): nhớ câu SQL
+ * - execute* : đo thời gian, báo cho SqlLogSettings quyết định có log hay không
+ * - addBatch: đếm số dòng trong batch (executeBatch log 1 lần cho cả batch)
+ *
+ * Không đổi hành vi JDBC: mọi lời gọi khác chuyển thẳng cho đối tượng thật.
+ * Tắt hẳn (không bọc) bằng sql.log.enabled=false
+ */
+public class SqlTimingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final SqlLogSettings settings;
+
+    public SqlTimingDataSource(DataSource target, SqlLogSettings settings) {
+        super(target);
+        this.settings = settings;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    // Spring goi close() cua bean da boc (suy ra destroy method) → chuyen cho pool that, khong ro ri connection
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlTimingDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> wrapStatement(result, PreparedStatement.class, (String) args[0]);
+                case "prepareCall" -> wrapStatement(result, CallableStatement.class, (String) args[0]);
+                case "createStatement" -> wrapStatement(result, Statement.class, null);
+                default -> result;
+            };
+        }
+
+        private Object wrapStatement(Object statement, Class<?> type, String sql) {
+            return Proxy.newProxyInstance(SqlTimingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(statement, sql));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Object target;
+        private final String preparedSql;
+        private int batchSize;
+        private String lastBatchSql;
+
+        StatementHandler(Object target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("addBatch")) {
+                batchSize++;
+                if (args != null && args.length == 1) {
+                    lastBatchSql = (String) args[0];
+                }
+                return SqlTimingDataSource.invoke(target, method, args);
+            }
+            if (name.equals("clearBatch")) {
+                batchSize = 0;
+                return SqlTimingDataSource.invoke(target, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                return SqlTimingDataSource.invoke(target, method, args);
+            }
+
+            boolean batch = name.startsWith("executeBatch") || name.startsWith("executeLargeBatch");
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s
+                    : batch && preparedSql == null ? lastBatchSql : preparedSql;
+            int rows = batch ? batchSize : 1;
+            long start = System.nanoTime();
+            try {
+                return SqlTimingDataSource.invoke(target, method, args);
+            } finally {
+                settings.record(sql, System.nanoTime() - start, rows);
+                if (batch) {
+                    batchSize = 0;
+                }
+            }
+        }
+    }
+}
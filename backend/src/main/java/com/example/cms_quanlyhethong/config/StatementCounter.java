@@ -0,0 +1,35 @@
+package com.example.cms_quanlyhethong.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/*
+    Hibernate goi inspect() truoc moi cau SQL (dang ky trong MetricsConfig) → cong 1 vao bo dem cua thread
+    Thread khong co bo dem (job dinh ky, khoi dong) → bo qua
+    StatementInspector la Serializable → class nay khong giu field nao, chi co ThreadLocal static
+ */
+final class StatementCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    // Mo bo dem cho thread hien tai; phan tu [0] = so cau SQL da chay
+    static int[] start() {
+        int[] counter = new int[1];
+        COUNTER.set(counter);
+        return counter;
+    }
+
+    static void stop() {
+        COUNTER.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.cms_quanlyhethong.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/*
+    So cau SQL Hibernate chay trong 1 request (phat hien N+1 / regression)
+    - Filter mo bo dem cho thread xu ly request, ghi vao histogram khi request xong
+    - StatementCounter (Hibernate goi truoc moi cau SQL) cong 1 vao bo dem do
+    SQL ngoai request (job dinh ky, khoi dong) khong co bo dem → bo qua
+    Chay ngay sau RequestCorrelationFilter → tinh ca SQL trong cac filter Security
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class StatementsPerRequestFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    public StatementsPerRequestFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int[] counter = StatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            StatementCounter.stop();
+            DistributionSummary.builder("hibernate.statements.per.request")
+                    .description("Số câu SQL Hibernate chạy trong 1 request")
+                    .tag("handler", MetricsConfig.handlerName(request))
+                    .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+                    .register(meterRegistry)
+                    .record(counter[0]);
+        }
+    }
+}
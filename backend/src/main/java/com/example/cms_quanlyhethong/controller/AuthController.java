@@ -1,9 +1,14 @@
 package com.example.cms_quanlyhethong.controller;
 
+import com.example.cms_quanlyhethong.config.OffloadingPasswordEncoder;
 import com.example.cms_quanlyhethong.dto.response.auth.LoginResponse;
 import com.example.cms_quanlyhethong.dto.request.auth.LoginRequest;
 import com.example.cms_quanlyhethong.service.AuthService;
+import com.example.cms_quanlyhethong.service.LoginThrottle;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -40,16 +45,33 @@ public class AuthController {
      * {
      *   "error": "Username không tồn tại!"
      * }
+     *
+     * Response (Error - 429 Too Many Requests, header Retry-After: số giây):
+     * Sai quá nhiều lần theo username hoặc IP → bị chặn trước khi kiểm tra mật khẩu
+     *
+     * Response (Error - 503 Service Unavailable, header Retry-After: số giây):
+     * Pool BCrypt đang đầy → thử lại sau
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) // convert JSON thanh Loginrequest
+    public ResponseEntity<?> login(@RequestBody LoginRequest request, // convert JSON thanh Loginrequest
+                                   HttpServletRequest httpRequest)
     {
         try{
             // goi service xu li logic dang nhap
-            LoginResponse user = authService.Login(request);
+            LoginResponse user = authService.Login(request, httpRequest.getRemoteAddr());
             // Trả về user (trong thực tế nên trả LoginResponse, không trả entity)
             return ResponseEntity.ok(user);
         }
+        catch(LoginThrottle.ThrottledException e){
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
+        }
+        catch(OffloadingPasswordEncoder.BusyException e){
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
+        }
         catch(RuntimeException e){
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -0,0 +1,56 @@
+package com.example.cms_quanlyhethong.controller;
+
+import com.example.cms_quanlyhethong.config.SqlLogSettings;
+import com.example.cms_quanlyhethong.dto.request.logging.SqlLogSettingsRequest;
+import com.example.cms_quanlyhethong.dto.response.logging.SqlLogSettingsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/logging")
+@CrossOrigin(origins = "http://localhost:3000")
+public class LoggingController {
+
+    @Autowired
+    private SqlLogSettings sqlLogSettings;
+
+    /**
+     * Xem cấu hình log SQL hiện tại
+     *
+     * Request:
+     * GET http://localhost:8080/api/admin/logging/sql
+     *
+     * Response (200 OK):
+     * { "slowThresholdMs": 500, "sampleRate": 0.0 }
+     */
+    @GetMapping("/sql")
+    public ResponseEntity<SqlLogSettingsResponse> getSqlSettings() {
+        return ResponseEntity.ok(toResponse());
+    }
+
+    /**
+     * Đổi cấu hình log SQL lúc đang chạy (không cần restart)
+     *
+     * Request:
+     * PUT http://localhost:8080/api/admin/logging/sql
+     * { "slowThresholdMs": 100, "sampleRate": 0.01 }
+     *
+     * - slowThresholdMs: câu chạy lâu hơn → luôn log, < 0 = tắt
+     * - sampleRate: tỉ lệ câu nhanh được log (0 = không, 1 = tất cả)
+     * Field bỏ trống → giữ nguyên
+     */
+    @PutMapping("/sql")
+    public ResponseEntity<?> updateSqlSettings(@RequestBody SqlLogSettingsRequest request) {
+        try {
+            sqlLogSettings.update(request.getSlowThresholdMs(), request.getSampleRate());
+            return ResponseEntity.ok(toResponse());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private SqlLogSettingsResponse toResponse() {
+        return new SqlLogSettingsResponse(sqlLogSettings.getSlowThresholdMs(), sqlLogSettings.getSampleRate());
+    }
+}
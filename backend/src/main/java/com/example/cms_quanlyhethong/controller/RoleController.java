@@ -3,11 +3,13 @@ package com.example.cms_quanlyhethong.controller;
 import com.example.cms_quanlyhethong.entity.Role;
 import com.example.cms_quanlyhethong.repository.RoleRepository;
 import com.example.cms_quanlyhethong.service.RoleService;
+import com.example.cms_quanlyhethong.until.ETagUntil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import com.example.cms_quanlyhethong.dto.request.role.RoleRequest;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -21,9 +23,14 @@ public class RoleController {
 
 
 
+    // ETag = phiên bản RoleCatalog; If-None-Match trùng → 304, không gửi lại danh sách
     @GetMapping
-    public List<Role> getAllRoles() {
-        return roleService.getAllRoles();  // ← Gọi qua instance
+    public ResponseEntity<List<Role>> getAllRoles(WebRequest webRequest) {
+        String etag = ETagUntil.of("roles", roleService.getRolesVersion());
+        if (webRequest.checkNotModified(etag)) {
+            return ETagUntil.notModified(etag);
+        }
+        return ETagUntil.ok(etag, roleService.getAllRoles());  // ← Gọi qua instance
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,40 @@
+package com.example.cms_quanlyhethong.controller;
+
+import com.example.cms_quanlyhethong.dto.response.stats.DashboardStatsResponse;
+import com.example.cms_quanlyhethong.service.DashboardStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/stats")
+@CrossOrigin(origins = "http://localhost:3000")
+public class StatsController {
+
+    @Autowired
+    private DashboardStats dashboardStats;
+
+    /**
+     * API số liệu cho Dashboard
+     *
+     * Request:
+     * GET http://localhost:8080/api/stats
+     *
+     * Response (200 OK):
+     * {
+     *   "totalUsers": 162,
+     *   "activeUsers": 158,
+     *   "totalStudents": 150,
+     *   "usersByRole": { "ROLE_ADMIN": 2, "ROLE_STUDENT": 150, "ROLE_TEACHER": 12 },
+     *   "studentsByMajor": { "CNTT": 90, "Kinh tế": 60 },
+     *   "studentsByClass": { "K65A": 45, "K65B": 40, ... },
+     *   "reconciledAt": "2026-01-01T08:00:00.000+00:00"
+     * }
+     *
+     * Lấy từ bộ đếm trong bộ nhớ → không query DB
+     */
+    @GetMapping
+    public ResponseEntity<DashboardStatsResponse> getStats() {
+        return ResponseEntity.ok(dashboardStats.snapshot());
+    }
+}
@@ -1,17 +1,30 @@
 package com.example.cms_quanlyhethong.controller;
 
+import com.example.cms_quanlyhethong.config.OffloadingPasswordEncoder;
 import com.example.cms_quanlyhethong.dto.request.student.StudentCreateRequest;
 import com.example.cms_quanlyhethong.dto.request.student.StudentUpdateRequest;
 import com.example.cms_quanlyhethong.dto.response.student.StudentResponse;
+import com.example.cms_quanlyhethong.dto.response.student.StudentImportResponse;
+import com.example.cms_quanlyhethong.dto.response.student.StudentVersion;
+import com.example.cms_quanlyhethong.service.ExportService;
+import com.example.cms_quanlyhethong.service.StudentImportService;
 import com.example.cms_quanlyhethong.service.StudentService;
+import com.example.cms_quanlyhethong.until.ETagUntil;
+import com.example.cms_quanlyhethong.until.ExportUntil;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -33,6 +46,10 @@ public class StudentController {
 
     @Autowired
     private StudentService studentService;
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private StudentImportService studentImportService;
 
     /**
      * ==========================================
@@ -51,12 +68,72 @@ public class StudentController {
      *     ...
      *   }
      * ]
+     *
+     * Phân trang (tùy chọn):
+     *   GET /api/students?page=0&size=20&sort=fullName,asc   → theo trang
+     *   GET /api/students?size=20&cursor=MTIz                → theo cursor (keyset, nhanh với trang sâu)
+     *
+     * Response (200 OK) khi có tham số phân trang:
+     * {
+     *   "content": [ ... ],
+     *   "page": 0, "size": 20, "totalElements": 1234, "totalPages": 62,
+     *   "hasNext": true,
+     *   "nextCursor": "MTQz"   // chỉ có ở chế độ cursor
+     * }
      */
     @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
     @GetMapping
-    public ResponseEntity<List<StudentResponse>> getAllStudents() {
-        List<StudentResponse> students = studentService.getAllStudents();
-        return ResponseEntity.ok(students);
+    public ResponseEntity<?> getAllStudents(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor
+    ) {
+        try {
+            if (cursor != null) {
+                return ResponseEntity.ok(studentService.getStudentsAfter(cursor, size));
+            }
+            if (page != null || size != null || sort != null) {
+                return ResponseEntity.ok(studentService.getStudentsPage(page, size, sort));
+            }
+            // Không có tham số phân trang → trả cả danh sách như cũ
+            List<StudentResponse> students = studentService.getAllStudents();
+            return ResponseEntity.ok(students);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * ==========================================
+     * API 1b: XUẤT TOÀN BỘ SINH VIÊN (NDJSON / CSV)
+     * ==========================================
+     * Request:
+     *   GET http://localhost:8080/api/students/export?format=csv&gzip=true
+     *
+     * - format: ndjson (mặc định) hoặc csv
+     * - gzip: true → nén gzip (Content-Encoding: gzip)
+     *
+     * Dữ liệu được ghi ra response ngay khi đọc từ DB,
+     * không load cả bảng vào bộ nhớ
+     *
+     * Response (400 Bad Request):
+     * "Định dạng không hỗ trợ: xml"
+     */
+    @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
+    @GetMapping("/export")
+    public void exportStudents(
+            @RequestParam(defaultValue = ExportService.FORMAT_NDJSON) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response
+    ) throws IOException {
+        if (!ExportService.isSupportedFormat(format)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Định dạng không hỗ trợ: " + format);
+            return;
+        }
+        try (Writer writer = ExportUntil.openWriter(response, "students", format, gzip)) {
+            exportService.exportStudents(writer, format);
+        }
     }
 
     /**
@@ -76,22 +153,31 @@ public class StudentController {
      *
      * Response (400 Bad Request):
      * "Không tìm thấy sinh viên với ID: 1"
+     *
+     * Conditional GET: response có ETag "s-{id}-{updatedAt}",
+     * gửi lại If-None-Match → 304 Not Modified nếu sinh viên chưa bị sửa
      */
     @PreAuthorize("hasAnyRole('STUDENT','TEACHER','ADMIN')")
     @GetMapping("/{id}")
-    public ResponseEntity<?> getStudentById(@PathVariable Long id) {
+    public ResponseEntity<?> getStudentById(@PathVariable Long id, WebRequest webRequest) {
         try {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             String currentUsername = auth.getName(); // Tên đăng nhập trong Token
             // Check role xem có phải Admin hay Teacher không
             boolean isAdminOrTeacher = auth.getAuthorities().stream()
                     .anyMatch(r -> r.getAuthority().equals("ROLE_ADMIN") || r.getAuthority().equals("ROLE_TEACHER"));
-            StudentResponse student = studentService.getStudentById(id);
-            if (!isAdminOrTeacher && !student.getEmail().equals(currentUsername)) {
+            // Đọc phiên bản trước (id, updatedAt, email), chưa dựng DTO
+            StudentVersion version = studentService.getStudentVersion(id);
+            if (!isAdminOrTeacher && !version.email().equals(currentUsername)) {
                 // (Giả sử email là username, hoặc bạn so sánh field username tương ứng)
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Bạn không có quyền xem thông tin sinh viên khác!");
             }
-            return ResponseEntity.ok(student);
+            // Client gửi If-None-Match trùng ETag → 304, không load entity, không gửi body
+            String etag = ETagUntil.of("s", version.id(), version.updatedAt());
+            if (webRequest.checkNotModified(etag)) {
+                return ETagUntil.notModified(etag);
+            }
+            return ETagUntil.ok(etag, studentService.getStudentById(id));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -125,6 +211,8 @@ public class StudentController {
      *
      * Response (400 Bad Request):
      * "Mã sinh viên đã tồn tại: SV001"
+     *
+     * Response (503 Service Unavailable, header Retry-After): pool BCrypt đang đầy
      */
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping
@@ -132,11 +220,52 @@ public class StudentController {
         try {
             StudentResponse student = studentService.createStudent(request);
             return ResponseEntity.ok(student);
+        } catch (OffloadingPasswordEncoder.BusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    /**
+     * ==========================================
+     * API 3b: IMPORT SINH VIÊN HÀNG LOẠT
+     * ==========================================
+     * Request:
+     *   POST http://localhost:8080/api/students/import
+     *   Content-Type: multipart/form-data, field "file"
+     *
+     * File CSV (dòng đầu là header, ngày dạng yyyy-MM-dd):
+     *   studentcode,fullname,dateofbirth,email,phone,address,major,classname
+     *   SV1001,Nguyen Van A,2004-05-12,a@gmail.com,0123456789,Ha Noi,CNTT,IT01
+     *
+     * Hoặc file .json: mảng các object giống body của API 3
+     *
+     * Response (200 OK):
+     * {
+     *   "total": 3, "imported": 2, "failed": 1,
+     *   "errors": [ { "row": 2, "studentcode": "SV001", "message": "Mã sinh viên đã tồn tại: SV001" } ]
+     * }
+     *
+     * Response (503 Service Unavailable, header Retry-After): pool BCrypt đang đầy, chưa dòng nào được ghi
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/import")
+    public ResponseEntity<?> importStudents(@RequestParam("file") MultipartFile file) {
+        try {
+            StudentImportResponse result = studentImportService.importStudents(file);
+            return ResponseEntity.ok(result);
+        } catch (OffloadingPasswordEncoder.BusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     /**
      * ==========================================
      * API 4: CẬP NHẬT SINH VIÊN
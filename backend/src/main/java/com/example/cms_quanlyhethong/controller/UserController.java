@@ -1,15 +1,26 @@
 package com.example.cms_quanlyhethong.controller;
 
+import com.example.cms_quanlyhethong.config.OffloadingPasswordEncoder;
+import com.example.cms_quanlyhethong.dto.request.user.BulkRoleRequest;
 import com.example.cms_quanlyhethong.dto.request.user.UserCreateRequest;
 import com.example.cms_quanlyhethong.dto.request.user.UserUpdateRequest;
+import com.example.cms_quanlyhethong.dto.response.user.BulkRoleResponse;
 import com.example.cms_quanlyhethong.dto.response.user.UserResponse;
+import com.example.cms_quanlyhethong.service.ExportService;
 import com.example.cms_quanlyhethong.service.UserService;
+import com.example.cms_quanlyhethong.until.ETagUntil;
+import com.example.cms_quanlyhethong.until.ExportUntil;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.Set;
 
@@ -19,6 +30,7 @@ import java.util.Set;
 public class UserController {
 
     private final UserService userService;
+    private final ExportService exportService;
 
     @PreAuthorize("hasRole('ADMIN')")
     // 1. Tạo mới người dùng
@@ -27,17 +39,57 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(userService.createUser(request));
     }
     @PreAuthorize("hasRole('ADMIN')")
-    // 2. Lấy danh sách tất cả người dùng
+    // 2. Lấy danh sách người dùng
+    //    - Không tham số: trả cả danh sách
+    //    - ?page=0&size=20&sort=username,asc: theo trang
+    //    - ?size=20&cursor=...: theo cursor (keyset), dùng nextCursor của trang trước
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor) {
+        try {
+            if (cursor != null) {
+                return ResponseEntity.ok(userService.getUsersAfter(cursor, size));
+            }
+            if (page != null || size != null || sort != null) {
+                return ResponseEntity.ok(userService.getUsersPage(page, size, sort));
+            }
+            return ResponseEntity.ok(userService.getAllUsers());
+        } catch (RuntimeException e) {
+            // sort theo field không cho phép / cursor sai định dạng → 400 (giống StudentController)
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 2b. Xuất toàn bộ người dùng (stream NDJSON / CSV, có thể nén gzip)
+    //     GET /api/users/export?format=csv&gzip=true
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    public void exportUsers(
+            @RequestParam(defaultValue = ExportService.FORMAT_NDJSON) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        if (!ExportService.isSupportedFormat(format)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Định dạng không hỗ trợ: " + format);
+            return;
+        }
+        try (Writer writer = ExportUntil.openWriter(response, "users", format, gzip)) {
+            exportService.exportUsers(writer, format);
+        }
     }
 
     // 3. Lấy người dùng theo ID
     @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+    // ETag = mốc sửa user + sinh viên + phiên bản roles; If-None-Match trùng → 304, không dựng DTO
     @GetMapping("/{id}")
-    public ResponseEntity<UserResponse> getUserById(@PathVariable Long id) {
-        return ResponseEntity.ok(userService.getUserById(id));
+    public ResponseEntity<UserResponse> getUserById(@PathVariable Long id, WebRequest webRequest) {
+        String etag = userService.getUserETag(id);
+        if (webRequest.checkNotModified(etag)) {
+            return ETagUntil.notModified(etag);
+        }
+        return ETagUntil.ok(etag, userService.getUserById(id));
     }
 
     // 4. Lấy người dùng theo Username
@@ -73,6 +125,16 @@ public class UserController {
         return ResponseEntity.ok(userService.assignRoles(id, roleIds));
     }
 
+    // 7b. Gán / gỡ 1 role cho nhiều người dùng (theo userIds hoặc filter)
+    //     Body: { "action": "ADD" | "REMOVE", "roleId": 3, "userIds": [1, 2] }
+    //       hoặc { "action": "ADD", "roleId": 3, "filter": { "role": "ROLE_STUDENT", "className": "K65-CNTT1" } }
+    //     Vài câu SQL theo tập thay vì 1 request / 1 user
+    @PostMapping("/roles/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkRoleResponse> bulkAssignRole(@RequestBody BulkRoleRequest request) {
+        return ResponseEntity.ok(userService.bulkAssignRole(request));
+    }
+
     // 8. Lấy danh sách người dùng theo tên quyền
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/role/{roleName}")
@@ -89,8 +151,17 @@ public class UserController {
 
     // 10. Tìm kiếm người dùng theo từ khóa (username, email, fullname)
     @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+    //     Không phân biệt dấu ("nguyen" tìm được "Nguyễn"), khớp tiền tố, xếp theo độ liên quan
+    //     Không tham số trang: tối đa 100 kết quả liên quan nhất
+    //     ?page=0&size=20: trả về PageResponse
     @GetMapping("/search")
-    public ResponseEntity<List<UserResponse>> searchUsers(@RequestParam String keyword) {
+    public ResponseEntity<?> searchUsers(
+            @RequestParam String keyword,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        if (page != null || size != null) {
+            return ResponseEntity.ok(userService.searchUsersPage(keyword, page, size));
+        }
         return ResponseEntity.ok(userService.searchUsers(keyword));
     }
 
@@ -100,4 +171,12 @@ public class UserController {
     public ResponseEntity<UserResponse> toggleUserStatus(@PathVariable Long id) {
         return ResponseEntity.ok(userService.toggleUserStatus(id));
     }
+
+    // Tạo / cập nhật user hash mật khẩu: pool BCrypt đầy → 503 + Retry-After (giống AuthController)
+    @ExceptionHandler(OffloadingPasswordEncoder.BusyException.class)
+    public ResponseEntity<String> passwordHashBusy(OffloadingPasswordEncoder.BusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.example.cms_quanlyhethong.dto.request.logging;
+
+import lombok.Data;
+
+/*
+    Doi cau hinh log SQL luc dang chay, field null = giu nguyen
+ */
+@Data
+public class SqlLogSettingsRequest {
+    private Long slowThresholdMs;   // < 0: tat log cau cham
+    private Double sampleRate;      // 0..1
+}
@@ -0,0 +1,35 @@
+package com.example.cms_quanlyhethong.dto.request.user;
+import lombok.*;
+
+import java.util.Set;
+
+/*
+    Gan / go 1 role cho nhieu user 1 lan
+    Chon user bang userIds HOAC filter (khong dung ca 2)
+    Vi du: { "action": "ADD", "roleId": 3, "filter": { "className": "K65-CNTT1" } }
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRoleRequest {
+
+    public enum Action { ADD, REMOVE }
+
+    private Action action;
+    private Long roleId;
+    private Set<Long> userIds;
+    private Filter filter;
+
+    // Cac dieu kien null thi bo qua; phai co it nhat 1 dieu kien
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Filter {
+        private String role;       // dang co role nay (vd ROLE_STUDENT)
+        private String className;  // lop cua ho so sinh vien
+        private String major;      // nganh cua ho so sinh vien
+        private Boolean active;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.cms_quanlyhethong.dto.response.common;
+
+import lombok.*;
+
+import java.util.List;
+
+/*
+    DTO tra ve 1 trang du lieu + thong tin phan trang
+    - Che do page/size: co page, totalElements, totalPages
+    - Che do cursor (keyset): chi co nextCursor, khong dem tong (de trang sau cung nhanh nhu trang dau)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PageResponse<T> {
+    private List<T> content;
+    private Integer page;          // null khi dung cursor
+    private int size;
+    private Long totalElements;    // null khi dung cursor
+    private Integer totalPages;    // null khi dung cursor
+    private boolean hasNext;
+    private String nextCursor;     // gui lai qua ?cursor= de lay trang tiep theo
+}
@@ -0,0 +1,7 @@
+package com.example.cms_quanlyhethong.dto.response.logging;
+
+/*
+    Cau hinh log SQL dang ap dung
+ */
+public record SqlLogSettingsResponse(long slowThresholdMs, double sampleRate) {
+}
@@ -0,0 +1,25 @@
+package com.example.cms_quanlyhethong.dto.response.stats;
+
+import lombok.*;
+
+import java.util.Date;
+import java.util.Map;
+
+/*
+    So lieu tong hop cho trang Dashboard (GET /api/stats)
+    Lay tu bo dem trong bo nho, khong query DB
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardStatsResponse {
+    private long totalUsers;
+    private long activeUsers;
+    private long totalStudents;
+    private Map<String, Long> usersByRole;
+    private Map<String, Long> studentsByMajor;
+    private Map<String, Long> studentsByClass;
+    private Date reconciledAt;     // lan cuoi doi chieu voi DB
+}
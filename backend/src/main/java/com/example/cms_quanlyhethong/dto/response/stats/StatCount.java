@@ -0,0 +1,8 @@
+package com.example.cms_quanlyhethong.dto.response.stats;
+
+/*
+    1 dong GROUP BY: khoa (ten role / nganh / lop) + so luong
+    Dung lam constructor expression trong JPQL
+ */
+public record StatCount(String key, long count) {
+}
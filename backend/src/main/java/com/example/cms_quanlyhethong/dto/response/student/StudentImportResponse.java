@@ -0,0 +1,36 @@
+package com.example.cms_quanlyhethong.dto.response.student;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Ket qua import sinh vien hang loat
+    - total: so dong doc duoc tu file
+    - imported: so sinh vien tao thanh cong
+    - errors: loi tung dong (so dong tinh tu 1, khong tinh header)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StudentImportResponse {
+    private int total;
+    private int imported;
+    private int failed;
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RowError {
+        private int row;
+        private String studentcode;
+        private String message;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.cms_quanlyhethong.dto.response.student;
+
+import java.util.Date;
+
+/*
+    Phien ban cua 1 sinh vien (tinh ETag truoc khi dung StudentResponse)
+    email: kiem tra quyen xem cua ROLE_STUDENT ma khong can load ca entity
+ */
+public record StudentVersion(Long id, Date updatedAt, String email) {
+}
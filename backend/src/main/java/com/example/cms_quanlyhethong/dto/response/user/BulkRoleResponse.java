@@ -0,0 +1,9 @@
+package com.example.cms_quanlyhethong.dto.response.user;
+
+/*
+    Ket qua gan / go role hang loat
+    matched: so user duoc chon, changed: so user thuc su doi role,
+    studentsCreated: so ho so sinh vien tao them (khi gan ROLE_STUDENT)
+ */
+public record BulkRoleResponse(String role, String action, int matched, int changed, int studentsCreated) {
+}
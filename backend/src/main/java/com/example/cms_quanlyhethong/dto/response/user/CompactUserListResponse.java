@@ -0,0 +1,53 @@
+package com.example.cms_quanlyhethong.dto.response.user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Danh sach user dang gon (chi dung cho Smile / CBOR):
+    - roles: tu dien role xuat hien trong danh sach, moi role ghi 1 lan (key = id)
+    - content: moi user chi giu roleIds thay vi lap lai ca object role
+    - Thong tin phan trang giong PageResponse, null (bo qua) khi API tra List thuong
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactUserListResponse {
+    private Map<Long, UserResponse.RoleResponse> roles;
+    private List<CompactUser> content;
+    private Integer page;
+    private Integer size;
+    private Long totalElements;
+    private Integer totalPages;
+    private Boolean hasNext;
+    private String nextCursor;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CompactUser {
+        private Long id;
+        private String username;
+        private String email;
+        private String fullname;
+        private boolean active;
+        private Date createdAt;
+        private Date updatedAt;
+        private List<Long> roleIds;
+        private UserResponse.StudentBasicInfo student;
+    }
+}
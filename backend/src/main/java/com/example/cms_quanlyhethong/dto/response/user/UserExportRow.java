@@ -0,0 +1,27 @@
+package com.example.cms_quanlyhethong.dto.response.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.Set;
+
+/*
+    1 dong khi export user (NDJSON / CSV)
+    Chi chua ten role, khong long RoleResponse / StudentBasicInfo
+    isActive kieu Boolean → getter getIsActive → NDJSON ghi "isActive", khop header CSV
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserExportRow {
+    private Long id;
+    private String username;
+    private String email;
+    private String fullname;
+    private Boolean isActive;
+    private Date createdAt;
+    private Date updatedAt;
+    private Set<String> roles;
+}
@@ -3,6 +3,7 @@ package com.example.cms_quanlyhethong.dto.response.user;
 import lombok.*;
 
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Set;
 
 @Getter
@@ -21,6 +22,24 @@ public class UserResponse {
     private Set<RoleResponse> roles;
     private StudentBasicInfo student;
 
+    // Dùng cho query projection (SELECT new ...): user + student phẳng trong 1 dòng,
+    // roles được gắn sau bằng 1 query riêng
+    public UserResponse(Long id, String username, String email, String fullname, Boolean isActive,
+                        Date createdAt, Date updatedAt,
+                        Long studentId, String studentCode, String studentFullName, String studentEmail) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.fullname = fullname;
+        this.isActive = Boolean.TRUE.equals(isActive);
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.roles = new HashSet<>();
+        this.student = studentId != null
+                ? new StudentBasicInfo(studentId, studentCode, studentFullName, studentEmail)
+                : null;
+    }
+
     @Getter
     @Setter
     @NoArgsConstructor
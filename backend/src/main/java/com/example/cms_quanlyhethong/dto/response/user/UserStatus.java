@@ -0,0 +1,8 @@
+package com.example.cms_quanlyhethong.dto.response.user;
+
+/*
+    Trang thai dang nhap cua 1 user (UserStatusRegistry)
+    statusVersion tang moi khi token cu phai bi thu hoi (khoa tai khoan, doi mat khau / role / username)
+ */
+public record UserStatus(Long id, String username, Integer statusVersion, Boolean active) {
+}
@@ -0,0 +1,10 @@
+package com.example.cms_quanlyhethong.dto.response.user;
+
+import java.util.Date;
+
+/*
+    Phien ban cua 1 user (tinh ETag truoc khi dung UserResponse)
+    UserResponse co kem thong tin sinh vien → sua sinh vien cung doi phien ban
+ */
+public record UserVersion(Long id, Date updatedAt, Date studentUpdatedAt) {
+}
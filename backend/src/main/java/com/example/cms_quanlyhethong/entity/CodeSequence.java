@@ -0,0 +1,22 @@
+package com.example.cms_quanlyhethong.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/*
+    Bo dem dung chung giua cac node de cap ma (hi/lo)
+    Moi lan can ma, app "giu cho" ca 1 khoi [nextValue, nextValue + n) bang 1 cau UPDATE
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name="code_sequences")
+public class CodeSequence {
+    @Id
+    @Column(name="name",length=50)
+    private String name;
+    @Column(name="next_value",nullable=false)
+    private Long nextValue; // gia tri dau tien chua bi node nao giu
+}
@@ -0,0 +1,21 @@
+package com.example.cms_quanlyhethong.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    Sinh id bang sequence + pooled optimizer (thay cho IDENTITY)
+    - Moi lan goi DB lay ca 1 khoi id (cms.id.allocation-size) → Hibernate gom INSERT thanh JDBC batch
+    - MySQL khong co sequence: Hibernate dung bang <name> (cot next_val) thay the
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+    // ten sequence (hoac ten bang thay the tren MySQL)
+    String name();
+}
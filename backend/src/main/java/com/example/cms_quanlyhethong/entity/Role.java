@@ -3,6 +3,8 @@ package com.example.cms_quanlyhethong.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Date;
 import java.util.HashSet;
@@ -13,9 +15,12 @@ import java.util.Set;
 @NoArgsConstructor
 @Entity()
 @Table(name="roles")
+// Cache cap 2 (region "role", cau hinh trong application.conf): it khi doi, doc rat nhieu
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "role")
 public class Role {
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @PooledSequence(name = "roles_seq")
     private Long id ;
     @Column(name="name",nullable=false,length=50,unique=true)
     private String name;
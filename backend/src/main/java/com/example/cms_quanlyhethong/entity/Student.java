@@ -12,9 +12,10 @@ import java.util.Date;
 @NoArgsConstructor
 @Entity
 @Table(name="students")
+// Khong dung cache cap 2 (giong User): sua o node khac phai thay ngay, ETag tinh tu DB
 public class Student {
     @Id
-    @GeneratedValue(strategy=GenerationType.IDENTITY)
+    @PooledSequence(name = "students_seq")
     private long id;
     @Column(name="student_code",length=20,unique=true,nullable=false)
     private String studentCode;
@@ -43,7 +44,8 @@ public class Student {
     private Date updatedAt;
     //mappedBy la inverse
     //Convert là dùng join
-    @OneToOne
+    // LAZY: danh sach sinh vien khong can load User kem theo (tranh N+1)
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     @JsonIgnore
     private User user;
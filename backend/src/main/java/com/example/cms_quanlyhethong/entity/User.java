@@ -10,14 +10,17 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name="users")
+// idx_users_update_at: UserStatusRegistry doi chieu user vua sua (update_at > moc) moi vai giay
+@Table(name="users", indexes = @Index(name = "idx_users_update_at", columnList = "update_at"))
+// Khong dung cache cap 2: cache Hibernate nam rieng tung node, khong co xoa cheo node
+// → node khac doc User cu (ETag moi + body cu, dang nhap voi mat khau / is_active cu)
 @Getter
 @Setter // Tự động tạo getter/setter, toString, equals, hashCode
 @NoArgsConstructor  // Constructor không tham số
 @AllArgsConstructor  // Constructor với tất cả tham số
 public class User {
     @Id
-    @GeneratedValue(strategy=GenerationType.IDENTITY)
+    @PooledSequence(name = "users_seq")
     private Long id;
     @Column(name="username",length=255,unique=true,nullable=false)
     private String username;
@@ -30,12 +33,15 @@ public class User {
     private String fullname;
     @Column(name = "is_active", nullable = false)
     private Boolean isActive=true;
+    // Tang khi token da cap phai bi thu hoi (JWT mang claim sv, filter so voi UserStatusRegistry)
+    @Column(name = "status_version", nullable = false, columnDefinition = "int default 0")
+    private Integer statusVersion = 0;
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private Date createdAt;
     @UpdateTimestamp
-    @Column(name = "update_at", nullable = false, updatable = false)
+    @Column(name = "update_at", nullable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private Date updatedAt;
     @ManyToMany(fetch = FetchType.EAGER)
@@ -0,0 +1,14 @@
+package com.example.cms_quanlyhethong.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+    Su kien phat ra khi role duoc tao / sua / xoa
+    RoleCatalog lang nghe de nap lai cache sau khi commit
+ */
+@Getter
+@AllArgsConstructor
+public class RoleChangedEvent {
+    private final Long roleId;
+}
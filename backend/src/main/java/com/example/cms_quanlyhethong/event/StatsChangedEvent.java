@@ -0,0 +1,54 @@
+package com.example.cms_quanlyhethong.event;
+
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.entity.Student;
+import com.example.cms_quanlyhethong.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+    Su kien thay doi so lieu dashboard: trang thai truoc / sau cua user va sinh vien
+    - before = null: vua tao moi, after = null: vua xoa
+    - DashboardStats lay (after - before) de cong / tru bo dem, khong can query DB
+    Phai chup "before" TRUOC khi sua entity
+ */
+@Getter
+@AllArgsConstructor
+public class StatsChangedEvent {
+
+    // Phan cua user anh huong toi so lieu: trang thai active + ten cac role
+    public record UserFacts(boolean active, Set<String> roles) {
+        public static UserFacts of(User user) {
+            if (user == null) {
+                return null;
+            }
+            Set<String> roles = user.getRoles().stream()
+                    .map(Role::getName)
+                    .collect(Collectors.toUnmodifiableSet());
+            return new UserFacts(Boolean.TRUE.equals(user.getIsActive()), roles);
+        }
+    }
+
+    // Phan cua sinh vien anh huong toi so lieu: nganh + lop
+    public record StudentFacts(String major, String className) {
+        public static StudentFacts of(Student student) {
+            return student == null ? null : new StudentFacts(student.getMajor(), student.getClassName());
+        }
+    }
+
+    private final UserFacts userBefore;
+    private final UserFacts userAfter;
+    private final StudentFacts studentBefore;
+    private final StudentFacts studentAfter;
+
+    public static StatsChangedEvent user(UserFacts before, UserFacts after) {
+        return new StatsChangedEvent(before, after, null, null);
+    }
+
+    public static StatsChangedEvent student(StudentFacts before, StudentFacts after) {
+        return new StatsChangedEvent(null, null, before, after);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.cms_quanlyhethong.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+    Su kien phat ra khi user duoc tao / sua / xoa
+    Cac thanh phan giu du lieu trong bo nho (search index, ...) lang nghe de dong bo
+    Nen lang nghe bang @TransactionalEventListener (chi chay sau khi commit thanh cong)
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Long userId;
+    private final String username;
+    private final String email;
+    private final String fullname;
+
+    public static UserChangedEvent deleted(Long userId) {
+        return new UserChangedEvent(Type.DELETED, userId, null, null, null);
+    }
+}
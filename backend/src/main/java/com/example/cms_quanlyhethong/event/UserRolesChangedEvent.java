@@ -0,0 +1,20 @@
+package com.example.cms_quanlyhethong.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/*
+    Su kien gan / go 1 role cho nhieu user bang SQL theo tap (khong qua entity)
+    - UserStatusRegistry: nap lai status_version cua cac user nay (1 query)
+    - DashboardStats: cong / tru so user cua role, cong so sinh vien vua tao
+ */
+@Getter
+@AllArgsConstructor
+public class UserRolesChangedEvent {
+    private final String roleName;
+    private final boolean added;
+    private final List<Long> userIds;
+    private final int studentsCreated;
+}
@@ -1,11 +1,18 @@
 package com.example.cms_quanlyhethong.mapper;
 
+import com.example.cms_quanlyhethong.dto.response.common.PageResponse;
+import com.example.cms_quanlyhethong.dto.response.user.CompactUserListResponse;
 import com.example.cms_quanlyhethong.dto.response.user.UserResponse;
 import com.example.cms_quanlyhethong.entity.Role;
 import com.example.cms_quanlyhethong.entity.Student;
 import com.example.cms_quanlyhethong.entity.User;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Component
@@ -50,4 +57,52 @@ public class UserMapper {
                 .email(student.getEmail())
                 .build();
     }
-}
\ No newline at end of file
+
+    // ===== Danh sách dạng gọn (Smile / CBOR): role ghi 1 lần trong từ điển, user chỉ giữ roleIds =====
+    public CompactUserListResponse toCompactList(List<UserResponse> users) {
+        Map<Long, UserResponse.RoleResponse> roles = new TreeMap<>();
+        List<CompactUserListResponse.CompactUser> content = new ArrayList<>(users.size());
+        for (UserResponse user : users) {
+            content.add(toCompactUser(user, roles));
+        }
+        return CompactUserListResponse.builder()
+                .roles(roles)
+                .content(content)
+                .build();
+    }
+
+    public CompactUserListResponse toCompactPage(PageResponse<UserResponse> page) {
+        CompactUserListResponse compact = toCompactList(page.getContent());
+        compact.setPage(page.getPage());
+        compact.setSize(page.getSize());
+        compact.setTotalElements(page.getTotalElements());
+        compact.setTotalPages(page.getTotalPages());
+        compact.setHasNext(page.isHasNext());
+        compact.setNextCursor(page.getNextCursor());
+        return compact;
+    }
+
+    private CompactUserListResponse.CompactUser toCompactUser(UserResponse user,
+                                                            Map<Long, UserResponse.RoleResponse> roles) {
+        List<Long> roleIds = new ArrayList<>();
+        if (user.getRoles() != null) {
+            user.getRoles().stream()
+                    .sorted(Comparator.comparing(UserResponse.RoleResponse::getId))
+                    .forEach(role -> {
+                        roles.putIfAbsent(role.getId(), role);
+                        roleIds.add(role.getId());
+                    });
+        }
+        return CompactUserListResponse.CompactUser.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .fullname(user.getFullname())
+                .active(user.isActive())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .roleIds(roleIds)
+                .student(user.getStudent())
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.cms_quanlyhethong.repository;
+
+import com.example.cms_quanlyhethong.entity.CodeSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CodeSequenceRepository extends JpaRepository<CodeSequence, String>
+{
+    // Giu cho 1 khoi: UPDATE khoa dong den het transaction → 2 node khong lay trung khoi
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CodeSequence c SET c.nextValue = c.nextValue + :blockSize WHERE c.name = :name")
+    int advance(@Param("name") String name, @Param("blockSize") long blockSize);
+
+    @Query("SELECT c.nextValue FROM CodeSequence c WHERE c.name = :name")
+    Long findNextValue(@Param("name") String name);
+
+    // INSERT thuan (khong merge): dong da ton tai → loi trung khoa, khong ghi de bo dem cua node khac
+    @Modifying
+    @Query(value = "INSERT INTO code_sequences (name, next_value) VALUES (:name, :nextValue)", nativeQuery = true)
+    void insert(@Param("name") String name, @Param("nextValue") long nextValue);
+}
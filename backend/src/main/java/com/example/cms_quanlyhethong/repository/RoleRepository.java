@@ -1,13 +1,18 @@
 package com.example.cms_quanlyhethong.repository;
 
 import com.example.cms_quanlyhethong.entity.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role,Long>
 {
     // Tìm role theo tên (ROLE_ADMIN, ROLE_TEACHER, ROLE_STUDENT)
+    // Query cache + cache cap 2 → goi lai khong xuong DB cho toi khi bang roles bi ghi
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Role> findByName(String name);
 
     // Kiểm tra role có tồn tại không
@@ -1,12 +1,33 @@
 package com.example.cms_quanlyhethong.repository;
 
+import com.example.cms_quanlyhethong.dto.response.stats.StatCount;
+import com.example.cms_quanlyhethong.dto.response.student.StudentResponse;
+import com.example.cms_quanlyhethong.dto.response.student.StudentVersion;
 import com.example.cms_quanlyhethong.entity.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface StudentRepository extends JpaRepository<Student,Long>
 {
+    // Doc thang ra StudentResponse (constructor expression): khong tao entity,
+    // khong snapshot dirty-checking trong persistence context
+    String RESPONSE_SELECT = "SELECT new com.example.cms_quanlyhethong.dto.response.student.StudentResponse(" +
+            "s.id, s.studentCode, s.fullName, s.dateOfBirth, s.email, s.phone, " +
+            "s.address, s.major, s.className, s.createdAt, s.updatedAt) FROM Student s";
+
     // kiem tra ton tai ma sinh vien
     boolean existsByStudentCode(String studentcode);
     // kiem tra ton tai email
@@ -15,4 +36,45 @@ public interface StudentRepository extends JpaRepository<Student,Long>
     Optional<Student> findByStudentCode(String studentcode);
     //tim kiem theo email sinh vien
     Optional<Student> findByEmail(String email);
+    // import hang loat: kiem tra ca danh sach trong 1 query, tra ve cac gia tri da ton tai
+    @Query("SELECT s.studentCode FROM Student s WHERE s.studentCode IN :codes")
+    Set<String> findExistingStudentCodes(@Param("codes") Collection<String> codes);
+    @Query("SELECT s.email FROM Student s WHERE s.email IN :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    // Ma sinh vien theo tien to (SV...), dung 1 lan khi khoi tao bo dem cap ma
+    @Query("SELECT s.studentCode FROM Student s WHERE s.studentCode LIKE CONCAT(:prefix, '%')")
+    List<String> findStudentCodesStartingWith(@Param("prefix") String prefix);
+    // Phien ban (ETag): chi doc 3 cot, khong dung entity / DTO
+    @Query("SELECT new com.example.cms_quanlyhethong.dto.response.student.StudentVersion(s.id, s.updatedAt, s.email) " +
+            "FROM Student s WHERE s.id = :id")
+    Optional<StudentVersion> findVersionById(@Param("id") Long id);
+    // So sinh vien theo nganh / lop (doi chieu so lieu dashboard)
+    @Query("SELECT new com.example.cms_quanlyhethong.dto.response.stats.StatCount(s.major, COUNT(s)) " +
+            "FROM Student s GROUP BY s.major")
+    List<StatCount> countGroupByMajor();
+
+    @Query("SELECT new com.example.cms_quanlyhethong.dto.response.stats.StatCount(s.className, COUNT(s)) " +
+            "FROM Student s GROUP BY s.className")
+    List<StatCount> countGroupByClassName();
+
+    // ===== Doc danh sach dang DTO (projection) =====
+    @Query(RESPONSE_SELECT + " ORDER BY s.id")
+    List<StudentResponse> findAllAsResponse();
+
+    @Query(value = RESPONSE_SELECT, countQuery = "SELECT COUNT(s) FROM Student s")
+    Page<StudentResponse> findPageAsResponse(Pageable pageable);
+
+    // phan trang keyset: lay cac sinh vien co id > lastId (dung index khoa chinh, khong OFFSET)
+    @Query(RESPONSE_SELECT + " WHERE s.id > :lastId ORDER BY s.id")
+    List<StudentResponse> findAsResponseAfter(@Param("lastId") long lastId, Limit limit);
+
+    // export: doc lan luot tung dong bang cursor cua JDBC (fetch size 500), tra thang ra DTO
+    // khong tao entity trong persistence context → bo nho khong tang theo so dong
+    // phai goi trong @Transactional va dong Stream sau khi dung
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(RESPONSE_SELECT + " ORDER BY s.id")
+    Stream<StudentResponse> streamAllForExport();
 }
@@ -1,18 +1,42 @@
 package com.example.cms_quanlyhethong.repository;
 
+import com.example.cms_quanlyhethong.dto.response.stats.StatCount;
+import com.example.cms_quanlyhethong.dto.response.user.UserResponse;
+import com.example.cms_quanlyhethong.dto.response.user.UserStatus;
+import com.example.cms_quanlyhethong.dto.response.user.UserVersion;
 import com.example.cms_quanlyhethong.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long>
 {
+    // Doc thang ra UserResponse (constructor expression, khong tao entity), roles gan sau
+    String RESPONSE_SELECT = "SELECT new com.example.cms_quanlyhethong.dto.response.user.UserResponse(" +
+            "u.id, u.username, u.email, u.fullname, u.isActive, u.createdAt, u.updatedAt, " +
+            "s.id, s.studentCode, s.fullName, s.email) FROM User u LEFT JOIN u.student s";
+    // [userId, roleId, roleName, roleDescription]
+    String ROLE_ROW_SELECT = "SELECT u.id, r.id, r.name, r.description FROM User u JOIN u.roles r";
+
 // Quy tắc đặt tên method trong Spring Data JPA:
 
     // 1. Tìm theo 1 field
+    // Luon doc DB (khong query cache): dang nhap kiem tra mat khau / is_active moi nhat, ke ca khi sua o node khac
     Optional<User> findByUsername(String username);
 // → SELECT * FROM users WHERE username = ?
 
@@ -30,9 +54,99 @@ public interface UserRepository extends JpaRepository<User, Long>
 
     // 5. Đếm số lượng
     long countByIsActive(boolean isActive);
+
+    // Phien ban (ETag): moc sua cua user + sinh vien di kem, khong dung entity / DTO
+    @Query("SELECT new com.example.cms_quanlyhethong.dto.response.user.UserVersion(u.id, u.updatedAt, s.updatedAt) " +
+            "FROM User u LEFT JOIN u.student s WHERE u.id = :id")
+    Optional<UserVersion> findVersionById(@Param("id") Long id);
+
+    // Trang thai dang nhap (UserStatusRegistry): khong tai entity / role
+    // @Transactional (khong readOnly) → luon doc primary: replica tre se tra lai trang thai truoc khi khoa / thu hoi
+    String STATUS_SELECT = "SELECT new com.example.cms_quanlyhethong.dto.response.user.UserStatus(" +
+            "u.id, u.username, u.statusVersion, u.isActive) FROM User u";
+
+    @Transactional
+    @Query(STATUS_SELECT)
+    List<UserStatus> findAllStatuses();
+
+    @Transactional
+    @Query(STATUS_SELECT + " WHERE u.id = :id")
+    Optional<UserStatus> findStatusById(@Param("id") Long id);
+
+    @Transactional
+    @Query(STATUS_SELECT + " WHERE u.username = :username")
+    Optional<UserStatus> findStatusByUsername(@Param("username") String username);
+
+    @Transactional
+    @Query(STATUS_SELECT + " WHERE u.id IN :ids")
+    List<UserStatus> findStatusesByIds(@Param("ids") Collection<Long> ids);
+
+    // User vua sua (khoa, doi mat khau / role / username deu cap nhat update_at), dung idx_users_update_at
+    @Transactional
+    @Query(STATUS_SELECT + " WHERE u.updatedAt > :since")
+    List<UserStatus> findStatusesUpdatedSince(@Param("since") Date since);
+
+    // ===== Gan / go role hang loat (SQL theo tap, khong tai entity) =====
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Dieu kien null thi bo qua
+    @Query("SELECT u.id FROM User u LEFT JOIN u.student s WHERE " +
+            "(:active IS NULL OR u.isActive = :active) " +
+            "AND (:className IS NULL OR s.className = :className) " +
+            "AND (:major IS NULL OR s.major = :major) " +
+            "AND (:roleName IS NULL OR u.id IN (SELECT u2.id FROM User u2 JOIN u2.roles r WHERE r.name = :roleName))")
+    List<Long> findIdsByFilter(@Param("roleName") String roleName, @Param("className") String className,
+                               @Param("major") String major, @Param("active") Boolean active);
+
+    @Query(value = "SELECT ur.user_id FROM user_roles ur WHERE ur.role_id = :roleId AND ur.user_id IN (:ids)",
+            nativeQuery = true)
+    List<Long> findIdsHavingRole(@Param("roleId") Long roleId, @Param("ids") Collection<Long> ids);
+
+    // NOT EXISTS: request song song da gan roi thi bo qua, khong loi trung khoa
+    // SQL thuan khong khai bao query space → Hibernate xoa toan bo cache cap 2 (chi con Role) sau cau lenh
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO user_roles (user_id, role_id) SELECT u.id, :roleId FROM users u " +
+            "WHERE u.id IN (:ids) AND NOT EXISTS " +
+            "(SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)", nativeQuery = true)
+    int insertRole(@Param("roleId") Long roleId, @Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM user_roles WHERE role_id = :roleId AND user_id IN (:ids)", nativeQuery = true)
+    int deleteRole(@Param("roleId") Long roleId, @Param("ids") Collection<Long> ids);
+
+    // Role doi → token cu (mang role cu) bi thu hoi, ETag cua user doi theo
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.statusVersion = u.statusVersion + 1, u.updatedAt = :now WHERE u.id IN :ids")
+    int revokeTokensAndTouch(@Param("ids") Collection<Long> ids, @Param("now") Date now);
+
+    // [userId, fullname, email] cua user chua co ho so sinh vien
+    @Query("SELECT u.id, u.fullname, u.email FROM User u WHERE u.id IN :ids " +
+            "AND NOT EXISTS (SELECT 1 FROM Student s WHERE s.user.id = u.id)")
+    List<Object[]> findRowsWithoutStudent(@Param("ids") Collection<Long> ids);
+
+    // Cost BCrypt cao nhat dang luu ("$2a$12$..." → "12"), null neu chua co hash BCrypt nao
+    @Query("SELECT MAX(SUBSTRING(u.password, 5, 2)) FROM User u WHERE u.password LIKE '$2%'")
+    String findMaxBcryptCost();
+
+    // Hash lai mat khau voi cost BCrypt moi (sau khi dang nhap dung)
+    // Chi ghi neu hash chua bi doi trong luc dang hash (vd admin vua dat mat khau moi); khong doi update_at
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    // So user theo tung role (doi chieu so lieu dashboard)
+    @Query("SELECT new com.example.cms_quanlyhethong.dto.response.stats.StatCount(r.name, COUNT(u)) " +
+            "FROM User u JOIN u.roles r GROUP BY r.name")
+    List<StatCount> countGroupByRole();
 // → SELECT COUNT(*) FROM users WHERE is_active = ?
     //6 . Kiem tra ton tai emai;
     boolean existsByEmail(String email);
+    // import hang loat: tra ve cac username da ton tai trong danh sach (1 query)
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
     @Query("SELECT u FROM User u JOIN u.roles r WHERE r.name = :roleName")
     List<User> findByRoleName(@Param("roleName") String roleName);
     //8 tim kiem theo tai khoan khoa
@@ -43,4 +157,46 @@ public interface UserRepository extends JpaRepository<User, Long>
             "u.email LIKE %:keyword% OR " +
             "u.fullname LIKE %:keyword%")
     List<User> searchByKeyword(@Param("keyword") String keyword);
+    // ===== Doc danh sach dang DTO (projection): 1 query user + student, 1 query roles =====
+    @Query(RESPONSE_SELECT + " ORDER BY u.id")
+    List<UserResponse> findAllAsResponse();
+
+    @Query(RESPONSE_SELECT + " WHERE u.isActive = :isActive ORDER BY u.id")
+    List<UserResponse> findAsResponseByIsActive(@Param("isActive") boolean isActive);
+
+    @Query(RESPONSE_SELECT + " WHERE u.id IN " +
+            "(SELECT u2.id FROM User u2 JOIN u2.roles r WHERE r.name = :roleName) ORDER BY u.id")
+    List<UserResponse> findAsResponseByRoleName(@Param("roleName") String roleName);
+
+    @Query(RESPONSE_SELECT + " WHERE u.id IN :ids")
+    List<UserResponse> findAsResponseByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(ROLE_ROW_SELECT)
+    List<Object[]> findAllRoleRows();
+
+    @Query(ROLE_ROW_SELECT + " WHERE u.id IN :ids")
+    List<Object[]> findRoleRowsByUserIdIn(@Param("ids") Collection<Long> ids);
+
+    // nap search index luc khoi dong: [id, username, email, fullname]
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u.id, u.username, u.email, u.fullname FROM User u")
+    Stream<Object[]> streamSearchRows();
+
+    // phan trang: chi lay id cua trang (khong load entity), sau do findAsResponseByIdIn
+    @Query(value = "SELECT u.id FROM User u", countQuery = "SELECT COUNT(u) FROM User u")
+    Page<Long> findIdPage(Pageable pageable);
+
+    // phan trang keyset: id > lastId (dung index khoa chinh, khong OFFSET)
+    @Query("SELECT u.id FROM User u WHERE u.id > :lastId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("lastId") long lastId, Limit limit);
+    // export: moi dong = 1 cap (user, role), sap xep theo id de gom cac role cua cung 1 user
+    // [id, username, email, fullname, isActive, createdAt, updatedAt, roleName]
+    // doc bang cursor cua JDBC, khong tao entity; phai goi trong @Transactional va dong Stream sau khi dung
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.id, u.username, u.email, u.fullname, u.isActive, u.createdAt, u.updatedAt, r.name " +
+            "FROM User u LEFT JOIN u.roles r ORDER BY u.id")
+    Stream<Object[]> streamAllWithRoleNamesForExport();
 }
@@ -0,0 +1,207 @@
+package com.example.cms_quanlyhethong.search;
+
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * ==========================================
+ * INVERTED INDEX TÌM KIẾM USER TRONG BỘ NHỚ
+ * ==========================================
+ * - Mỗi field (username, fullname, email) có 1 TreeMap: token → tập id user
+ * - Tìm theo tiền tố = subMap(term, term + Character.MAX_VALUE) → không quét cả bảng
+ * - Nhiều từ khóa: user phải khớp TẤT CẢ từ khóa (AND)
+ * - Điểm: khớp nguyên token được gấp đôi khớp tiền tố, username > fullname > email
+ *
+ * Dữ liệu được nạp khi app khởi động, sau đó cập nhật qua UserChangedEvent
+ * Định kỳ (search.users.resync-interval-ms) đối chiếu lại với DB → user thêm / sửa / xóa ở node khác
+ * (hoặc sửa thẳng trong DB) có trong kết quả tìm kiếm sau tối đa 1 chu kỳ
+ */
+@Component
+@ConditionalOnProperty(name = "search.users.backend", havingValue = "memory", matchIfMissing = true)
+public class InMemoryUserSearchIndex implements UserSearchIndex {
+
+    private enum Field {
+        USERNAME(10), FULLNAME(6), EMAIL(4);
+
+        private final int weight;
+
+        Field(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private final Map<Field, NavigableMap<String, Set<Long>>> postings = new EnumMap<>(Field.class);
+    // token của từng user, dùng để gỡ khỏi index khi sửa / xóa
+    private final Map<Long, Map<Field, Set<String>>> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public InMemoryUserSearchIndex(UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        for (Field field : Field.values()) {
+            postings.put(field, new TreeMap<>());
+        }
+    }
+
+    // Nạp toàn bộ user khi khởi động và định kỳ (đọc dạng stream, không load entity)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${search.users.resync-interval-ms:60000}",
+            fixedDelayString = "${search.users.resync-interval-ms:60000}")
+    public void rebuild() {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = userRepository.streamSearchRows()) {
+                resync(rows);
+            }
+        });
+    }
+
+    /*
+    Doi chieu index voi cac dong [id, username, email, fullname] doc tu DB
+    - Dong co trong DB → index (khong doi token thi bo qua)
+    - User co trong index tu truoc khi bat dau nhung khong con trong DB → xoa
+      (user moi them qua event trong luc dang doc thi giu lai)
+     */
+    void resync(Stream<Object[]> rows) {
+        Set<Long> stale;
+        lock.readLock().lock();
+        try {
+            stale = new HashSet<>(documents.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        rows.forEach(row -> {
+            Long id = (Long) row[0];
+            stale.remove(id);
+            index(id, (String) row[1], (String) row[2], (String) row[3]);
+        });
+        stale.forEach(this::remove);
+    }
+
+    @Override
+    public UserSearchResult search(String keyword, int offset, int limit) {
+        List<String> terms = SearchTextUntil.tokenize(keyword);
+        if (terms.isEmpty()) {
+            return new UserSearchResult(List.of(), 0);
+        }
+
+        Map<Long, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                Map<Long, Integer> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // AND: chỉ giữ user khớp cả từ khóa này
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Long> ids = ranked.stream()
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+        return new UserSearchResult(ids, ranked.size());
+    }
+
+    // Điểm cao nhất của từng user với 1 từ khóa (trên mọi field)
+    private Map<Long, Integer> scoreTerm(String term) {
+        Map<Long, Integer> termScores = new HashMap<>();
+        for (Field field : Field.values()) {
+            NavigableMap<String, Set<Long>> matches =
+                    postings.get(field).subMap(term, true, term + Character.MAX_VALUE, true);
+            for (Map.Entry<String, Set<Long>> entry : matches.entrySet()) {
+                int score = entry.getKey().equals(term) ? field.weight * 2 : field.weight;
+                for (Long id : entry.getValue()) {
+                    termScores.merge(id, score, Math::max);
+                }
+            }
+        }
+        return termScores;
+    }
+
+    @Override
+    public void index(Long userId, String username, String email, String fullname) {
+        Map<Field, Set<String>> document = new EnumMap<>(Field.class);
+        Set<String> usernameTokens = new HashSet<>(SearchTextUntil.tokenize(username));
+        usernameTokens.add(SearchTextUntil.normalize(username)); // cả username nguyên vẹn (vd: "nguyen.van.a")
+        document.put(Field.USERNAME, usernameTokens);
+        document.put(Field.FULLNAME, new HashSet<>(SearchTextUntil.tokenize(fullname)));
+        Set<String> emailTokens = new HashSet<>(SearchTextUntil.tokenize(email));
+        emailTokens.add(SearchTextUntil.normalize(email));
+        document.put(Field.EMAIL, emailTokens);
+
+        lock.writeLock().lock();
+        try {
+            if (document.equals(documents.get(userId))) {
+                return;
+            }
+            removeLocked(userId);
+            documents.put(userId, document);
+            document.forEach((field, tokens) -> {
+                for (String token : tokens) {
+                    if (!token.isEmpty()) {
+                        postings.get(field).computeIfAbsent(token, t -> new HashSet<>()).add(userId);
+                    }
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long userId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long userId) {
+        Map<Field, Set<String>> old = documents.remove(userId);
+        if (old == null) {
+            return;
+        }
+        old.forEach((field, tokens) -> {
+            NavigableMap<String, Set<Long>> fieldPostings = postings.get(field);
+            for (String token : tokens) {
+                Set<Long> ids = fieldPostings.get(token);
+                if (ids != null) {
+                    ids.remove(userId);
+                    if (ids.isEmpty()) {
+                        fieldPostings.remove(token);
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.cms_quanlyhethong.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * ==========================================
+ * TÌM KIẾM USER BẰNG MYSQL FULLTEXT (ngram)
+ * ==========================================
+ * - Tạo FULLTEXT index (username, email, full_name) WITH PARSER ngram khi khởi động nếu chưa có
+ * - Mỗi từ khóa thành "+tu*" trong BOOLEAN MODE: bắt buộc khớp, khớp theo tiền tố
+ * - Không phân biệt dấu nhờ collation *_ai_ci của cột (vd: utf8mb4_0900_ai_ci)
+ * - MySQL tự cập nhật index khi INSERT / UPDATE / DELETE → index() / remove() không cần làm gì
+ */
+@Component
+@ConditionalOnProperty(name = "search.users.backend", havingValue = "mysql")
+public class MysqlFulltextUserSearchIndex implements UserSearchIndex {
+
+    private static final String INDEX_NAME = "ft_users_search";
+    private static final String MATCH = "MATCH(username, email, full_name) AGAINST (? IN BOOLEAN MODE)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MysqlFulltextUserSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexIfMissing() {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                        "WHERE table_schema = DATABASE() AND table_name = 'users' AND index_name = ?",
+                Integer.class, INDEX_NAME);
+        if (existing == null || existing == 0) {
+            jdbcTemplate.execute("ALTER TABLE users ADD FULLTEXT INDEX " + INDEX_NAME +
+                    " (username, email, full_name) WITH PARSER ngram");
+        }
+    }
+
+    @Override
+    public UserSearchResult search(String keyword, int offset, int limit) {
+        List<String> terms = SearchTextUntil.tokenize(keyword);
+        if (terms.isEmpty()) {
+            return new UserSearchResult(List.of(), 0);
+        }
+        StringBuilder query = new StringBuilder();
+        for (String term : terms) {
+            query.append('+').append(term).append("* ");
+        }
+        String booleanQuery = query.toString().trim();
+
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE " + MATCH, Long.class, booleanQuery);
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE " + MATCH + " ORDER BY " + MATCH + " DESC, id LIMIT ? OFFSET ?",
+                Long.class, booleanQuery, booleanQuery, limit, offset);
+        return new UserSearchResult(ids, total != null ? total : 0);
+    }
+
+    @Override
+    public void index(Long userId, String username, String email, String fullname) {
+        // MySQL tự cập nhật FULLTEXT index
+    }
+
+    @Override
+    public void remove(Long userId) {
+        // MySQL tự cập nhật FULLTEXT index
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.cms_quanlyhethong.search;
+
+/*
+    Backend tim kiem user (chon bang property search.users.backend):
+    - memory: inverted index trong bo nho (InMemoryUserSearchIndex)
+    - mysql:  FULLTEXT index voi parser ngram (MysqlFulltextUserSearchIndex)
+ */
+public interface UserSearchIndex {
+
+    /*
+    Tim user theo tu khoa: khong phan biet hoa thuong / dau tieng Viet,
+    moi tu khoa khop theo tien to, ket qua xep hang theo do lien quan
+    @param offset - vi tri bat dau (page * size)
+    @param limit - so ket qua toi da
+     */
+    UserSearchResult search(String keyword, int offset, int limit);
+
+    // them hoac cap nhat 1 user trong index
+    void index(Long userId, String username, String email, String fullname);
+
+    // xoa user khoi index
+    void remove(Long userId);
+}
@@ -0,0 +1,26 @@
+package com.example.cms_quanlyhethong.search;
+
+import com.example.cms_quanlyhethong.event.UserChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/*
+    Dong bo search index khi user thay doi
+    Chi chay sau khi transaction commit (rollback thi index khong bi sua)
+ */
+@Component
+@RequiredArgsConstructor
+public class UserSearchIndexListener {
+
+    private final UserSearchIndex userSearchIndex;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.DELETED) {
+            userSearchIndex.remove(event.getUserId());
+        } else {
+            userSearchIndex.index(event.getUserId(), event.getUsername(), event.getEmail(), event.getFullname());
+        }
+    }
+}
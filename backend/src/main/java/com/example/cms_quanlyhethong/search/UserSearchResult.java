@@ -0,0 +1,16 @@
+package com.example.cms_quanlyhethong.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/*
+    Ket qua tim kiem: id user da xep hang (cua trang hien tai) + tong so ket qua
+ */
+@Getter
+@AllArgsConstructor
+public class UserSearchResult {
+    private final List<Long> ids;
+    private final long total;
+}
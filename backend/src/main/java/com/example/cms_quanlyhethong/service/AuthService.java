@@ -8,7 +8,6 @@ import com.example.cms_quanlyhethong.entity.Role;
 import com.example.cms_quanlyhethong.until.JwtUntil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -23,31 +22,42 @@ public class AuthService {
     private JwtUntil jwtUntil;
     @Autowired
     private PasswordEncoder passwordEncoder;
-    public LoginResponse Login(LoginRequest request) {
+    @Autowired
+    private LoginThrottle loginThrottle;
+    @Autowired
+    private PasswordRehasher passwordRehasher;
+    public LoginResponse Login(LoginRequest request, String clientIp) {
 
+        // chan do mat khau truoc khi cham DB / BCrypt
+        loginThrottle.acquire(request.getUsername(), clientIp);
         // tim user theo username
         Optional<User>  userOptional = userRepository.findByUsername(request.getUsername());
         // kiem tra user ton tai
         if(userOptional.isEmpty())
         {
+            loginThrottle.recordFailure(request.getUsername(), clientIp);
             throw new UsernameNotFoundException("Username not found");
         }
         User user = userOptional.get();
         //kiem tra password
         if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+            loginThrottle.recordFailure(request.getUsername(), clientIp);
             throw new RuntimeException("Password không đúng!");
         }
+        loginThrottle.recordSuccess(request.getUsername(), clientIp);
         // kiem tra user co active khong
         if(!user.getIsActive()) {
             throw new RuntimeException("Tai khoan da bi khoa");
         }
+        // hash luu voi cost BCrypt cu → hash lai o nen, khong cho
+        passwordRehasher.rehashIfNeeded(user, request.getPassword());
         // Convert Entity -> DTO
         // lay danh sach ten cac role
         Set<String> roleNames = user.getRoles().stream()
                 .map(Role::getName) //lay nam moi role
                 .collect(Collectors.toSet());
         // Tao JWT Token
-        String jwtToken = jwtUntil.generateToken(user.getUsername(),roleNames);
+        String jwtToken = jwtUntil.generateToken(user.getUsername(),roleNames,user.getStatusVersion());
         // Tạo LoginResponse
         LoginResponse response = new LoginResponse(
                 user.getId(),
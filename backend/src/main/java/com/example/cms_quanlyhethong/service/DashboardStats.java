@@ -0,0 +1,174 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.dto.response.stats.DashboardStatsResponse;
+import com.example.cms_quanlyhethong.dto.response.stats.StatCount;
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.event.StatsChangedEvent;
+import com.example.cms_quanlyhethong.event.UserRolesChangedEvent;
+import com.example.cms_quanlyhethong.repository.StudentRepository;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * ==========================================
+ * DASHBOARD STATS - BỘ ĐẾM SỐ LIỆU TRONG BỘ NHỚ
+ * ==========================================
+ * Dashboard chỉ cần con số tổng → không kéo cả danh sách user / sinh viên.
+ * - Khởi động: đếm 1 lần bằng COUNT / GROUP BY
+ * - UserService / StudentService ghi xong → phát StatsChangedEvent → cộng / trừ bộ đếm sau khi commit
+ * - Định kỳ (stats.reconcile-interval-ms) đếm lại từ DB để sửa sai lệch (ghi ngoài app, lỗi giữa chừng, ...)
+ *   Có sự kiện được cộng / trừ trong lúc đang đếm → không biết kết quả COUNT đã tính sự kiện đó chưa
+ *   → bỏ kết quả, đếm lại (tối đa RECONCILE_ATTEMPTS lần, hết lượt thì giữ bộ đếm, lần định kỳ sau thử tiếp)
+ *
+ * Đọc số liệu = copy vài Map nhỏ (số role / ngành / lớp), không phụ thuộc số dòng trong bảng
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardStats {
+
+    // Sinh viên chưa có ngành / lớp
+    private static final String UNKNOWN = "N/A";
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    private final UserRepository userRepository;
+    private final StudentRepository studentRepository;
+    private final RoleCatalog roleCatalog;
+
+    // Tất cả field dưới đây được bảo vệ bởi lock của this
+    private long totalUsers;
+    private long activeUsers;
+    private long totalStudents;
+    private final Map<String, Long> usersByRole = new HashMap<>();
+    private final Map<String, Long> studentsByMajor = new HashMap<>();
+    private final Map<String, Long> studentsByClass = new HashMap<>();
+    private Date reconciledAt;
+    // Số sự kiện đã cộng / trừ: reconcile so sánh trước / sau khi đếm
+    private long generation;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        reconcile();
+    }
+
+    /*
+    Dem lai toan bo tu DB roi thay the bo dem hien tai
+    Query chay ngoai lock → doc dashboard / ghi nhan su kien khong bi chan trong luc dem
+    Chi thay the khi khong co su kien nao xen vao giua luc dem: neu co, commit do co the da / chua nam
+    trong ket qua COUNT → thay the se mat hoac cong 2 lan su kien do
+     */
+    @Scheduled(initialDelayString = "${stats.reconcile-interval-ms:600000}",
+            fixedDelayString = "${stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            long startGeneration;
+            synchronized (this) {
+                startGeneration = generation;
+            }
+            long users = userRepository.count();
+            long active = userRepository.countByIsActive(true);
+            long students = studentRepository.count();
+            List<StatCount> byRole = userRepository.countGroupByRole();
+            List<StatCount> byMajor = studentRepository.countGroupByMajor();
+            List<StatCount> byClass = studentRepository.countGroupByClassName();
+
+            synchronized (this) {
+                if (generation != startGeneration) {
+                    continue;
+                }
+                totalUsers = users;
+                activeUsers = active;
+                totalStudents = students;
+                replace(usersByRole, byRole);
+                replace(studentsByMajor, byMajor);
+                replace(studentsByClass, byClass);
+                reconciledAt = new Date();
+                return;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStatsChanged(StatsChangedEvent event) {
+        generation++;
+        applyUser(event.getUserBefore(), -1);
+        applyUser(event.getUserAfter(), 1);
+        applyStudent(event.getStudentBefore(), -1);
+        applyStudent(event.getStudentAfter(), 1);
+    }
+
+    // Gan / go role hang loat: +/- so user cua role; sinh vien moi tao chua co nganh / lop
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserRolesChanged(UserRolesChangedEvent event) {
+        generation++;
+        add(usersByRole, event.getRoleName(), event.isAdded() ? event.getUserIds().size() : -event.getUserIds().size());
+        for (int i = 0; i < event.getStudentsCreated(); i++) {
+            applyStudent(new StatsChangedEvent.StudentFacts(null, null), 1);
+        }
+    }
+
+    /*
+    Chup so lieu hien tai
+    Role chua co user nao van hien voi gia tri 0
+     */
+    public synchronized DashboardStatsResponse snapshot() {
+        Map<String, Long> roles = new TreeMap<>();
+        for (Role role : roleCatalog.findAll()) {
+            roles.put(role.getName(), 0L);
+        }
+        roles.putAll(usersByRole);
+        return DashboardStatsResponse.builder()
+                .totalUsers(totalUsers)
+                .activeUsers(activeUsers)
+                .totalStudents(totalStudents)
+                .usersByRole(roles)
+                .studentsByMajor(new TreeMap<>(studentsByMajor))
+                .studentsByClass(new TreeMap<>(studentsByClass))
+                .reconciledAt(reconciledAt)
+                .build();
+    }
+
+    private void applyUser(StatsChangedEvent.UserFacts facts, int sign) {
+        if (facts == null) {
+            return;
+        }
+        totalUsers += sign;
+        if (facts.active()) {
+            activeUsers += sign;
+        }
+        for (String role : facts.roles()) {
+            add(usersByRole, role, sign);
+        }
+    }
+
+    private void applyStudent(StatsChangedEvent.StudentFacts facts, int sign) {
+        if (facts == null) {
+            return;
+        }
+        totalStudents += sign;
+        add(studentsByMajor, keyOf(facts.major()), sign);
+        add(studentsByClass, keyOf(facts.className()), sign);
+    }
+
+    // Cong / tru 1 khoa, ve 0 thi bo khoa di cho Map gon
+    private static void add(Map<String, Long> counts, String key, long delta) {
+        counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static void replace(Map<String, Long> counts, List<StatCount> rows) {
+        counts.clear();
+        for (StatCount row : rows) {
+            add(counts, keyOf(row.key()), row.count());
+        }
+    }
+
+    private static String keyOf(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.dto.response.student.StudentResponse;
+import com.example.cms_quanlyhethong.dto.response.user.UserExportRow;
+import com.example.cms_quanlyhethong.repository.StudentRepository;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.stream.Stream;
+
+/**
+ * ==========================================
+ * EXPORT SERVICE - XUẤT DỮ LIỆU SINH VIÊN / USER
+ * ==========================================
+ * Ghi từng dòng ra Writer ngay khi đọc được từ DB (cursor của JDBC),
+ * không gom cả bảng vào List → bộ nhớ không đổi dù xuất 1k hay 1M dòng.
+ *
+ * Định dạng hỗ trợ:
+ * - ndjson: mỗi dòng 1 object JSON
+ * - csv:    dòng đầu là header
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final String STUDENT_CSV_HEADER =
+            "id,studentcode,fullname,dateofbirth,email,phone,address,major,classname,createdAt,updatedAt";
+    private static final String USER_CSV_HEADER =
+            "id,username,email,fullname,isActive,createdAt,updatedAt,roles";
+
+    private final StudentRepository studentRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    // Kiểm tra format trước khi mở response
+    public static boolean isSupportedFormat(String format) {
+        return FORMAT_NDJSON.equals(format) || FORMAT_CSV.equals(format);
+    }
+
+    // ========== EXPORT STUDENTS ==========
+    @Transactional(readOnly = true)
+    public void exportStudents(Writer writer, String format) throws IOException {
+        boolean csv = FORMAT_CSV.equals(format);
+        if (csv) {
+            writer.write(STUDENT_CSV_HEADER);
+            writer.write('\n');
+        }
+        try (Stream<StudentResponse> students = studentRepository.streamAllForExport()) {
+            Iterator<StudentResponse> it = students.iterator();
+            while (it.hasNext()) {
+                StudentResponse s = it.next();
+                if (csv) {
+                    writeCsvRow(writer, s.getId(), s.getStudentcode(), s.getFullname(), s.getDateofbirth(),
+                            s.getEmail(), s.getPhone(), s.getAddress(), s.getMajor(), s.getClassname(),
+                            s.getCreatedAt(), s.getUpdatedAt());
+                } else {
+                    writeJsonLine(writer, s);
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    // ========== EXPORT USERS ==========
+    // Query trả về 1 dòng cho mỗi cặp (user, role), đã sắp xếp theo id
+    // → gom các dòng liên tiếp cùng id thành 1 UserExportRow rồi ghi ra ngay
+    @Transactional(readOnly = true)
+    public void exportUsers(Writer writer, String format) throws IOException {
+        boolean csv = FORMAT_CSV.equals(format);
+        if (csv) {
+            writer.write(USER_CSV_HEADER);
+            writer.write('\n');
+        }
+        try (Stream<Object[]> rows = userRepository.streamAllWithRoleNamesForExport()) {
+            Iterator<Object[]> it = rows.iterator();
+            UserExportRow current = null;
+            while (it.hasNext()) {
+                Object[] row = it.next();
+                Long id = (Long) row[0];
+                if (current == null || !current.getId().equals(id)) {
+                    if (current != null) {
+                        writeUser(writer, current, csv);
+                    }
+                    current = new UserExportRow(id, (String) row[1], (String) row[2], (String) row[3],
+                            Boolean.TRUE.equals(row[4]), (Date) row[5], (Date) row[6], new LinkedHashSet<>());
+                }
+                if (row[7] != null) {
+                    current.getRoles().add((String) row[7]);
+                }
+            }
+            if (current != null) {
+                writeUser(writer, current, csv);
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeUser(Writer writer, UserExportRow user, boolean csv) throws IOException {
+        if (csv) {
+            writeCsvRow(writer, user.getId(), user.getUsername(), user.getEmail(), user.getFullname(),
+                    user.getIsActive(), user.getCreatedAt(), user.getUpdatedAt(), String.join("|", user.getRoles()));
+        } else {
+            writeJsonLine(writer, user);
+        }
+    }
+
+    private void writeJsonLine(Writer writer, Object value) throws IOException {
+        writer.write(objectMapper.writeValueAsString(value));
+        writer.write('\n');
+    }
+
+    private void writeCsvRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvEscape(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    // Bọc trong dấu " nếu có , " hoặc xuống dòng; " bên trong nhân đôi
+    private String csvEscape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text;
+        if (value instanceof java.sql.Date date) {
+            text = date.toString(); // cột DATE: yyyy-MM-dd
+        } else if (value instanceof Date date) {
+            text = date.toInstant().toString();
+        } else {
+            text = value.toString();
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.cms_quanlyhethong.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * ==========================================
+ * CHẶN DÒ MẬT KHẨU (LOGIN THROTTLE)
+ * ==========================================
+ * Mỗi lần đăng nhập tốn 1 lần BCrypt → dò mật khẩu hàng loạt sẽ ăn hết CPU.
+ * Kiểm tra trước khi tìm user trong DB / hash mật khẩu, theo 2 khóa:
+ * - username: chặn dò nhiều mật khẩu cho 1 tài khoản
+ * - IP client: chặn 1 máy thử nhiều tài khoản (password spraying)
+ *
+ * Mỗi khóa có:
+ * - Token bucket: capacity lần thử, hồi lại refill-per-minute lần / phút
+ * - Backoff: sai liên tiếp quá free-failures lần → khóa base·2^n ms (tối đa backoff-max-ms)
+ * - Đăng nhập đúng → xóa số lần sai của username; số lần sai của IP chỉ giảm 1
+ *   (1 tài khoản đúng không được "rửa" backoff của IP đang dò các tài khoản khác)
+ *
+ * Bảng trạng thái cố định (slots), không khóa:
+ * - Chia thành các nhóm WAYS ô liền nhau, khóa chỉ nằm trong nhóm của hash(khóa)
+ * - hash(khóa) có seed ngẫu nhiên mỗi process → kẻ tấn công không tính trước được khóa nào rơi vào cùng nhóm
+ * - Mỗi ô giữ 1 Entry bất biến, cập nhật bằng compareAndSet (thất bại → đọc lại, thử lại)
+ * - Entry không dùng quá idle-ttl-ms và hết bị khóa → coi như trống, ghi đè được
+ * - Nhóm đầy → ghi đè entry lâu không dùng nhất trong số entry KHÔNG bị khóa
+ *   → bộ nhớ không bao giờ vượt slots entry, và không thể dồn khóa mới để xóa backoff của 1 tài khoản
+ * - Cả nhóm đều đang bị khóa → ghi đè IP bị khóa sắp hết hạn nhất (IP mới của kẻ tấn công vốn đã
+ *   có trạng thái trống, mất backoff của 1 IP không mở thêm gì); backoff của username không bao giờ bị ghi đè
+ * - Cả nhóm là username bị khóa → khóa mới dùng chung 1 token bucket của nhóm (giới hạn như 1 IP),
+ *   không lưu số lần sai → dò hàng loạt không khóa được mọi lần đăng nhập (fail closed), nhưng vẫn bị giới hạn
+ */
+@Component
+public class LoginThrottle {
+
+    private static final int WAYS = 4;
+
+    /*
+    Trang thai 1 khoa (bat bien), thoi gian tinh bang nanoTime
+    granted: lan tryAcquire vua roi co lay duoc token khong
+     */
+    private record Entry(String key, double tokens, long refilledAt, int failures,
+                         long blockedUntil, long lastSeen, boolean granted) {
+    }
+
+    /*
+    Gioi han cho 1 loai khoa (username / ip)
+     */
+    private record Limit(double capacity, double tokensPerNano) {
+        static Limit of(int capacity, int refillPerMinute) {
+            return new Limit(capacity, refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1));
+        }
+    }
+
+    /*
+    Bi chan: client phai doi retryAfterSeconds giay roi moi thu lai
+     */
+    public static class ThrottledException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public ThrottledException(long retryAfterSeconds) {
+            super("Đăng nhập sai quá nhiều lần, vui lòng thử lại sau " + retryAfterSeconds + " giây");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    // 1 bucket chung / nhom, cho khoa khong con o (ca nhom la username bi khoa)
+    private final AtomicReferenceArray<Entry> overflow;
+    private final int setMask;
+    private final Limit usernameLimit;
+    private final Limit ipLimit;
+    private final int freeFailures;
+    private final long backoffBaseNanos;
+    private final long backoffMaxNanos;
+    private final long idleTtlNanos;
+    private final LongSupplier clock;
+    private final long seed = new SecureRandom().nextLong();
+
+    @Autowired
+    public LoginThrottle(@Value("${security.login.throttle.slots:16384}") int slots,
+                         @Value("${security.login.throttle.username.capacity:5}") int usernameCapacity,
+                         @Value("${security.login.throttle.username.refill-per-minute:5}") int usernameRefill,
+                         @Value("${security.login.throttle.ip.capacity:20}") int ipCapacity,
+                         @Value("${security.login.throttle.ip.refill-per-minute:30}") int ipRefill,
+                         @Value("${security.login.throttle.free-failures:3}") int freeFailures,
+                         @Value("${security.login.throttle.backoff-base-ms:1000}") long backoffBaseMs,
+                         @Value("${security.login.throttle.backoff-max-ms:900000}") long backoffMaxMs,
+                         @Value("${security.login.throttle.idle-ttl-ms:3600000}") long idleTtlMs) {
+        this(slots, Limit.of(usernameCapacity, usernameRefill), Limit.of(ipCapacity, ipRefill), freeFailures,
+                backoffBaseMs, backoffMaxMs, idleTtlMs, System::nanoTime);
+    }
+
+    LoginThrottle(int slots, int usernameCapacity, int usernameRefill, int ipCapacity, int ipRefill,
+                  int freeFailures, long backoffBaseMs, long backoffMaxMs, long idleTtlMs, LongSupplier clock) {
+        this(slots, Limit.of(usernameCapacity, usernameRefill), Limit.of(ipCapacity, ipRefill), freeFailures,
+                backoffBaseMs, backoffMaxMs, idleTtlMs, clock);
+    }
+
+    private LoginThrottle(int slots, Limit usernameLimit, Limit ipLimit, int freeFailures,
+                          long backoffBaseMs, long backoffMaxMs, long idleTtlMs, LongSupplier clock) {
+        // So nhom la luy thua cua 2 → chon nhom bang phep AND
+        int sets = Integer.highestOneBit(Math.max(slots / WAYS, 1));
+        this.slots = new AtomicReferenceArray<>(sets * WAYS);
+        this.overflow = new AtomicReferenceArray<>(sets);
+        this.setMask = sets - 1;
+        this.usernameLimit = usernameLimit;
+        this.ipLimit = ipLimit;
+        this.freeFailures = freeFailures;
+        this.backoffBaseNanos = TimeUnit.MILLISECONDS.toNanos(backoffBaseMs);
+        this.backoffMaxNanos = TimeUnit.MILLISECONDS.toNanos(backoffMaxMs);
+        this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMs);
+        this.clock = clock;
+    }
+
+    /*
+    Goi truoc khi tim user / hash mat khau: lay 1 token cho IP va username
+    Het token (cua khoa / bucket chung cua nhom) hoac dang bi backoff → ThrottledException (khong cham DB, khong BCrypt)
+     */
+    public void acquire(String username, String clientIp) {
+        long now = clock.getAsLong();
+        long waitNanos = tryAcquire(ipKey(clientIp), ipLimit, now);
+        if (waitNanos == 0) {
+            waitNanos = tryAcquire(usernameKey(username), usernameLimit, now);
+        }
+        if (waitNanos > 0) {
+            throw new ThrottledException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+        }
+    }
+
+    /*
+    Dang nhap sai (sai mat khau / user khong ton tai) → tang so lan sai, tinh backoff
+     */
+    public void recordFailure(String username, String clientIp) {
+        long now = clock.getAsLong();
+        recordFailure(ipKey(clientIp), ipLimit, now);
+        recordFailure(usernameKey(username), usernameLimit, now);
+    }
+
+    /*
+    Dang nhap dung → xoa so lan sai cua username, so lan sai cua IP giam 1 (token da tieu van giu nguyen)
+     */
+    public void recordSuccess(String username, String clientIp) {
+        long now = clock.getAsLong();
+        decay(ipKey(clientIp), ipLimit, now);
+        reset(usernameKey(username), usernameLimit, now);
+    }
+
+    /*
+    So o dang giu trang thai con hieu luc (de test / giam sat)
+     */
+    public int activeEntries() {
+        long now = clock.getAsLong();
+        int count = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            Entry entry = slots.get(i);
+            if (entry != null && !isExpired(entry, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    // 0 = duoc phep, > 0 = so nano phai doi
+    private long tryAcquire(String key, Limit limit, long now) {
+        int base = setOf(key);
+        Entry entry = update(key, base, limit, now, current -> {
+            Entry refilled = refill(current, limit, now);
+            if (refilled.blockedUntil() - now > 0 || refilled.tokens() < 1) {
+                return withGranted(refilled, false);
+            }
+            return new Entry(key, refilled.tokens() - 1, refilled.refilledAt(), refilled.failures(),
+                    refilled.blockedUntil(), now, true);
+        });
+        if (entry == null) {
+            // Khong con o cho khoa nay → lay token tu bucket chung cua nhom
+            return tryAcquireOverflow(base / WAYS, now);
+        }
+        if (entry.granted()) {
+            return 0;
+        }
+        long blocked = Math.max(0, entry.blockedUntil() - now);
+        long untilToken = (long) Math.ceil((1 - entry.tokens()) / limit.tokensPerNano());
+        return Math.max(1, Math.max(blocked, untilToken));
+    }
+
+    private void recordFailure(String key, Limit limit, long now) {
+        update(key, setOf(key), limit, now, current -> {
+            int failures = current.failures() + 1;
+            long blockedUntil = current.blockedUntil();
+            if (failures > freeFailures) {
+                blockedUntil = now + backoffNanos(failures - freeFailures);
+            }
+            return new Entry(key, current.tokens(), current.refilledAt(), failures, blockedUntil, now,
+                    current.granted());
+        });
+    }
+
+    // Bucket chung co gioi han cua 1 IP; 0 = duoc phep, > 0 = so nano phai doi
+    private long tryAcquireOverflow(int set, long now) {
+        while (true) {
+            Entry current = overflow.get(set);
+            Entry refilled = refill(current == null ? fresh("overflow", ipLimit, now) : current, ipLimit, now);
+            if (refilled.tokens() < 1) {
+                return Math.max(1, (long) Math.ceil((1 - refilled.tokens()) / ipLimit.tokensPerNano()));
+            }
+            Entry next = new Entry(refilled.key(), refilled.tokens() - 1, refilled.refilledAt(), 0, now, now, true);
+            if (overflow.compareAndSet(set, current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private void reset(String key, Limit limit, long now) {
+        update(key, setOf(key), limit, now, current -> new Entry(key, current.tokens(), current.refilledAt(), 0, now, now,
+                current.granted()));
+    }
+
+    // Giam 1 lan sai, giu nguyen backoff dang ap dung
+    private void decay(String key, Limit limit, long now) {
+        update(key, setOf(key), limit, now, current -> new Entry(key, current.tokens(), current.refilledAt(),
+                Math.max(0, current.failures() - 1), current.blockedUntil(), now, current.granted()));
+    }
+
+    // base·2^(n-1), khong vuot backoffMax (chan tran so khi n lon)
+    private long backoffNanos(int step) {
+        int shift = Math.min(step - 1, 62);
+        if (backoffBaseNanos > (backoffMaxNanos >> shift)) {
+            return backoffMaxNanos;
+        }
+        return Math.min(backoffBaseNanos << shift, backoffMaxNanos);
+    }
+
+    /*
+    Cap nhat trang thai cua 1 khoa bang CAS, tra ve Entry moi
+    - Tim khoa trong nhom cua no
+    - Chua co → lay o trong / het han, neu khong co thi o lau khong dung nhat trong so o khong bi khoa
+    - Ca nhom dang bi khoa → o cua IP bi khoa som het nhat
+    - Ca nhom la username bi khoa → null (khong ghi de backoff cua tai khoan)
+    - CAS that bai (thread khac vua ghi o do) → lam lai tu dau
+     */
+    private Entry update(String key, int base, Limit limit, long now, UnaryOperator<Entry> change) {
+        while (true) {
+            int victim = -1;
+            Entry victimEntry = null;
+            boolean victimFree = false;
+            int blockedIp = -1;
+            Entry blockedIpEntry = null;
+            Entry found = null;
+            int foundIndex = -1;
+            for (int i = base; i < base + WAYS; i++) {
+                Entry entry = slots.get(i);
+                if (entry != null && entry.key().equals(key)) {
+                    found = entry;
+                    foundIndex = i;
+                    break;
+                }
+                if (victimFree) {
+                    continue;
+                }
+                boolean free = entry == null || isExpired(entry, now);
+                if (!free && entry.blockedUntil() - now > 0) {
+                    if (entry.key().startsWith("ip:")
+                            && (blockedIp < 0 || entry.blockedUntil() - blockedIpEntry.blockedUntil() < 0)) {
+                        blockedIp = i;
+                        blockedIpEntry = entry;
+                    }
+                    continue;
+                }
+                if (free || victim < 0 || entry.lastSeen() - victimEntry.lastSeen() < 0) {
+                    victim = i;
+                    victimEntry = entry;
+                    victimFree = free;
+                }
+            }
+            Entry current;
+            int index;
+            if (found != null) {
+                current = isExpired(found, now) ? fresh(key, limit, now) : found;
+                index = foundIndex;
+            } else if (victim < 0 && blockedIp < 0) {
+                return null;
+            } else if (victim < 0) {
+                current = fresh(key, limit, now);
+                index = blockedIp;
+                victimEntry = blockedIpEntry;
+            } else {
+                current = fresh(key, limit, now);
+                index = victim;
+            }
+            Entry next = change.apply(current);
+            if (slots.compareAndSet(index, found != null ? found : victimEntry, next)) {
+                return next;
+            }
+        }
+    }
+
+    private Entry refill(Entry entry, Limit limit, long now) {
+        long elapsed = now - entry.refilledAt();
+        if (elapsed <= 0 || entry.tokens() >= limit.capacity()) {
+            return new Entry(entry.key(), entry.tokens(), now, entry.failures(), entry.blockedUntil(),
+                    entry.lastSeen(), entry.granted());
+        }
+        double tokens = Math.min(limit.capacity(), entry.tokens() + elapsed * limit.tokensPerNano());
+        return new Entry(entry.key(), tokens, now, entry.failures(), entry.blockedUntil(), entry.lastSeen(),
+                entry.granted());
+    }
+
+    private static Entry withGranted(Entry entry, boolean granted) {
+        return new Entry(entry.key(), entry.tokens(), entry.refilledAt(), entry.failures(), entry.blockedUntil(),
+                entry.lastSeen(), granted);
+    }
+
+    private static Entry fresh(String key, Limit limit, long now) {
+        return new Entry(key, limit.capacity(), now, 0, now, now, false);
+    }
+
+    // Het han: lau khong dung va khong con bi khoa
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.lastSeen() > idleTtlNanos && now - entry.blockedUntil() >= 0;
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + (username == null ? "" : username.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static String ipKey(String clientIp) {
+        return "ip:" + (clientIp == null ? "" : clientIp);
+    }
+
+    /*
+    Chi so o dau tien cua nhom chua khoa
+    FNV-1a 64 bit bat dau tu seed ngau nhien + tron bit kieu murmur3 (fmix64):
+    String.hashCode co dinh, de tao hang loat khoa trung hash (vd "Aa" / "BB") → don 1 nhom
+     */
+    private int setOf(String key) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return ((int) h & setMask) * WAYS;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.config.OffloadingPasswordEncoder;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/*
+    Hash lai mat khau khi cost BCrypt da luu khac cost hien tai (sau khi hieu chinh / doi cau hinh)
+    - Chi lam duoc luc dang nhap dung (moi co mat khau goc)
+    - Chay tren pool BCrypt, khong cho → response dang nhap khong cham them
+    - Pool dang day → bo qua, lan dang nhap sau lam
+    Metric: security.password.rehash (outcome = upgraded / skipped / failed)
+ */
+@Slf4j
+@Component
+public class PasswordRehasher {
+
+    private final OffloadingPasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final Counter upgraded;
+    private final Counter skipped;
+    private final Counter failed;
+
+    public PasswordRehasher(OffloadingPasswordEncoder passwordEncoder, UserRepository userRepository,
+                            MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.upgraded = counter(meterRegistry, "upgraded");
+        this.skipped = counter(meterRegistry, "skipped");
+        this.failed = counter(meterRegistry, "failed");
+    }
+
+    /*
+    Goi sau khi matches() dung; tra ve ngay, viec hash + UPDATE chay nen
+    @return future cua viec hash lai (null neu khong can / bi bo qua)
+     */
+    public CompletableFuture<Void> rehashIfNeeded(User user, String rawPassword) {
+        String oldHash = user.getPassword();
+        if (!passwordEncoder.upgradeEncoding(oldHash)) {
+            return null;
+        }
+        Long userId = user.getId();
+        try {
+            return passwordEncoder.encodeAsync(rawPassword)
+                    .thenAccept(newHash -> {
+                        if (userRepository.replacePasswordHash(userId, oldHash, newHash) == 1) {
+                            upgraded.increment();
+                            log.info("Rehashed password of user {} to BCrypt cost {}", userId, passwordEncoder.getBcryptCost());
+                        } else {
+                            // hash da bi doi trong luc dang hash (doi mat khau / login song song da lam)
+                            skipped.increment();
+                        }
+                    })
+                    .exceptionally(e -> {
+                        failed.increment();
+                        log.warn("Rehash password of user {} failed: {}", userId, e.getMessage());
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            skipped.increment();
+            return null;
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String outcome) {
+        return Counter.builder("security.password.rehash")
+                .description("Hash lại mật khẩu sang cost BCrypt hiện tại khi đăng nhập")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.event.RoleChangedEvent;
+import com.example.cms_quanlyhethong.repository.RoleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * ==========================================
+ * ROLE CATALOG - CACHE DANH SÁCH ROLE TRONG BỘ NHỚ
+ * ==========================================
+ * Role gần như không đổi nhưng được tra cứu ở mọi thao tác ghi user / sinh viên.
+ * - Nạp toàn bộ bảng roles 1 lần (khi khởi động hoặc lần dùng đầu tiên)
+ * - Tra theo id / name bằng Map → 0 round trip tới DB
+ * - RoleService tạo / sửa / xóa role → phát RoleChangedEvent → nạp lại sau khi commit
+ * - Định kỳ nạp lại toàn bộ → role sửa ở node khác (hoặc sửa thẳng trong DB) có hiệu lực
+ *   sau tối đa roles.resync-interval-ms (bảng roles chỉ vài dòng, nạp lại rất rẻ)
+ * - version đổi → xóa cache cấp 2 của Role + query cache (cache riêng từng node, không tự xóa chéo node)
+ *
+ * Snapshot là immutable, thay thế nguyên khối → đọc không cần lock
+ *
+ * version: băm nội dung bảng roles → giống nhau trên mọi node có cùng dữ liệu,
+ * dùng làm ETag cho GET /api/roles và 1 phần ETag của user (UserResponse có tên role)
+ */
+@Component
+@RequiredArgsConstructor
+public class RoleCatalog {
+
+    private record Snapshot(List<Role> all, Map<Long, Role> byId, Map<String, Role> byName, String version) {
+    }
+
+    private final RoleRepository roleRepository;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoleChanged(RoleChangedEvent event) {
+        refresh();
+    }
+
+    // Nạp lại toàn bộ bảng roles
+    @Scheduled(initialDelayString = "${roles.resync-interval-ms:60000}",
+            fixedDelayString = "${roles.resync-interval-ms:60000}")
+    public synchronized void refresh() {
+        List<Role> roles = roleRepository.findAll();
+        Map<Long, Role> byId = new HashMap<>();
+        Map<String, Role> byName = new HashMap<>();
+        for (Role role : roles) {
+            byId.put(role.getId(), role);
+            byName.put(role.getName(), role);
+        }
+        String version = versionOf(roles);
+        Snapshot previous = snapshot;
+        if (previous != null && !previous.version().equals(version)) {
+            evictRoleCaches();
+        }
+        snapshot = new Snapshot(List.copyOf(roles), Map.copyOf(byId), Map.copyOf(byName), version);
+    }
+
+    public String version() {
+        return current().version();
+    }
+
+    public List<Role> findAll() {
+        return current().all();
+    }
+
+    public Optional<Role> findById(Long id) {
+        return Optional.ofNullable(current().byId().get(id));
+    }
+
+    public Optional<Role> findByName(String name) {
+        return Optional.ofNullable(current().byName().get(name));
+    }
+
+    /*
+    Tra danh sach role theo id, khong query DB
+    @throws RuntimeException neu co id khong ton tai
+     */
+    public Set<Role> resolveAll(Collection<Long> roleIds) {
+        Map<Long, Role> byId = current().byId();
+        Set<Role> roles = new HashSet<>();
+        for (Long roleId : roleIds) {
+            Role role = byId.get(roleId);
+            if (role == null) {
+                throw new RuntimeException("Role not found: " + roleId);
+            }
+            roles.add(role);
+        }
+        return roles;
+    }
+
+    // findAll doc thang DB nhung findByName / Role trong cache cap 2 van co the la ban cu
+    private void evictRoleCaches() {
+        entityManagerFactory.getCache().evict(Role.class);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+    }
+
+    // SHA-256 cua (id, name, description, createdAt) theo thu tu id, lay 16 ky tu hex dau
+    private static String versionOf(List<Role> roles) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        roles.stream()
+                .sorted(Comparator.comparing(Role::getId))
+                .forEach(role -> digest.update((role.getId() + "\0" + role.getName() + "\0"
+                        + role.getDescription() + "\0"
+                        + (role.getCreatedAt() == null ? "" : role.getCreatedAt().getTime()) + "\n")
+                        .getBytes(StandardCharsets.UTF_8)));
+        return HexFormat.of().formatHex(digest.digest(), 0, 8);
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+}
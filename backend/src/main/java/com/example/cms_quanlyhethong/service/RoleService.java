@@ -1,8 +1,10 @@
 package com.example.cms_quanlyhethong.service;
 
 import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.event.RoleChangedEvent;
 import com.example.cms_quanlyhethong.repository.RoleRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.example.cms_quanlyhethong.dto.request.role.RoleRequest;
@@ -15,21 +17,32 @@ import java.util.List;
 public class RoleService {
 
     private final RoleRepository roleRepository;
+    private final RoleCatalog roleCatalog;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ========== GET ALL ROLES ==========
+    // Đọc từ RoleCatalog (cache trong bộ nhớ), không query DB
+    @Transactional(readOnly = true)
     public List<Role> getAllRoles() {
-        return roleRepository.findAll();
+        return roleCatalog.findAll();
+    }
+
+    // Phien ban danh sach role (ETag), doi moi khi tao / sua / xoa role
+    public String getRolesVersion() {
+        return roleCatalog.version();
     }
 
     // ========== GET ROLE BY ID ==========
+    @Transactional(readOnly = true)
     public Role getRoleById(Long id) {
-        return roleRepository.findById(id)
+        return roleCatalog.findById(id)
                 .orElseThrow(() -> new RuntimeException("Role not found with id: " + id));
     }
 
     // ========== GET ROLE BY NAME ==========
+    @Transactional(readOnly = true)
     public Role getRoleByName(String name) {
-        return roleRepository.findByName(name)
+        return roleCatalog.findByName(name)
                 .orElseThrow(() -> new RuntimeException("Role not found with name: " + name));
     }
 
@@ -44,7 +57,9 @@ public class RoleService {
         role.setName(request.getName());
         role.setDescription(request.getDescription());
 
-        return roleRepository.save(role);
+        Role savedRole = roleRepository.save(role);
+        eventPublisher.publishEvent(new RoleChangedEvent(savedRole.getId())); // nạp lại RoleCatalog sau commit
+        return savedRole;
     }
 
     // ========== UPDATE ROLE ==========
@@ -60,7 +75,9 @@ public class RoleService {
         role.setName(request.getName());
         role.setDescription(request.getDescription());
 
-        return roleRepository.save(role);
+        Role savedRole = roleRepository.save(role);
+        eventPublisher.publishEvent(new RoleChangedEvent(savedRole.getId()));
+        return savedRole;
     }
 
     // ========== DELETE ROLE ==========
@@ -68,5 +85,6 @@ public class RoleService {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Role not found with id: " + id));
         roleRepository.delete(role);
+        eventPublisher.publishEvent(new RoleChangedEvent(id));
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.repository.CodeSequenceRepository;
+import com.example.cms_quanlyhethong.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ==========================================
+ * CẤP MÃ SINH VIÊN THEO KHỐI (HI/LO)
+ * ==========================================
+ * Mã sinh viên không còn phụ thuộc id của user → tạo được Student trước khi lưu User.
+ * - Bảng code_sequences giữ giá trị tiếp theo chưa cấp (dùng chung mọi node)
+ * - Mỗi node giữ chỗ 1 khối block-size mã bằng 1 câu UPDATE (transaction riêng, commit ngay)
+ * - Trong khối: cấp mã bằng AtomicLong → các thread tạo user không khóa lẫn nhau
+ * - Hết khối mới khóa để lấy khối tiếp theo (1 thread lấy, các thread khác chờ rồi dùng luôn)
+ *   Khóa là ReentrantLock (không dùng synchronized → virtual thread chờ khóa không bị ghim carrier)
+ * - Lấy khối chạy trong transaction REQUIRES_NEW → mượn thêm 1 connection trong khi transaction
+ *   của người gọi vẫn giữ connection của nó; chỉ xảy ra 1 lần / block-size mã, pool cần dư ít nhất 1
+ * - Mã SV do admin / import CSV nhập tay có thể rơi vào khối đã giữ chỗ (bộ đếm chỉ khởi tạo 1 lần):
+ *   trước khi trả, tra các mã ứng viên trong bảng students (1 câu / lô) và bỏ qua mã đã có
+ *
+ * Restart / rollback → phần còn lại của khối bị bỏ (mã nhảy cóc) nhưng không bao giờ trùng
+ */
+@Component
+public class StudentCodeAllocator {
+
+    private static final String PREFIX = "SV";
+    private static final String SEQUENCE = "student_code";
+
+    // Khối rỗng: lần cấp đầu tiên sẽ đi lấy khối mới
+    private record Block(AtomicLong next, long end) {
+        static final Block EMPTY = new Block(new AtomicLong(), 0);
+    }
+
+    private final CodeSequenceRepository codeSequenceRepository;
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate requiresNew;
+    private final int blockSize;
+
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    private volatile Block block = Block.EMPTY;
+
+    public StudentCodeAllocator(CodeSequenceRepository codeSequenceRepository,
+                                StudentRepository studentRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${student.code.block-size:50}") int blockSize) {
+        this.codeSequenceRepository = codeSequenceRepository;
+        this.studentRepository = studentRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /*
+    Cap 1 ma sinh vien moi: SV000001, SV000002, ...
+     */
+    public String nextCode() {
+        return nextCodes(1).get(0);
+    }
+
+    /*
+    Cap count ma chua co trong bang students; ma da bi nhap tay → bo, cap them ma khac
+     */
+    public List<String> nextCodes(int count) {
+        List<String> codes = new ArrayList<>(count);
+        while (codes.size() < count) {
+            List<String> candidates = new ArrayList<>(count - codes.size());
+            for (int i = codes.size(); i < count; i++) {
+                candidates.add(PREFIX + String.format("%06d", nextValue()));
+            }
+            Set<String> taken = studentRepository.findExistingStudentCodes(candidates);
+            for (String candidate : candidates) {
+                if (!taken.contains(candidate)) {
+                    codes.add(candidate);
+                }
+            }
+        }
+        return codes;
+    }
+
+    private long nextValue() {
+        while (true) {
+            Block current = block;
+            long value = current.next().getAndIncrement();
+            if (value < current.end()) {
+                return value;
+            }
+            refill(current);
+        }
+    }
+
+    // Chi 1 thread di lay khoi moi; thread den sau thay khoi da doi thi quay lai cap tiep
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (block != exhausted) {
+                return;
+            }
+            long end = reserve();
+            block = new Block(new AtomicLong(end - blockSize), end);
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    // Giu cho [end - blockSize, end) tren DB, tra ve end
+    private long reserve() {
+        Long end = requiresNew.execute(status -> advance());
+        if (end == null) {
+            seed();
+            end = requiresNew.execute(status -> advance());
+        }
+        if (end == null) {
+            throw new IllegalStateException("Không khởi tạo được bộ đếm mã sinh viên");
+        }
+        return end;
+    }
+
+    private Long advance() {
+        if (codeSequenceRepository.advance(SEQUENCE, blockSize) == 0) {
+            return null;
+        }
+        return codeSequenceRepository.findNextValue(SEQUENCE);
+    }
+
+    /*
+    Tao dong bo dem lan dau: bat dau sau ma SV lon nhat da co (ma cu dang SV001 = "SV" + id user)
+    2 node cung tao → 1 node bi trung khoa chinh, bo qua va dung dong cua node kia
+     */
+    private void seed() {
+        long first = studentRepository.findStudentCodesStartingWith(PREFIX).stream()
+                .map(code -> code.substring(PREFIX.length()))
+                .filter(digits -> !digits.isEmpty() && digits.length() < 19 && digits.chars().allMatch(Character::isDigit))
+                .mapToLong(Long::parseLong)
+                .max()
+                .orElse(0) + 1;
+        try {
+            requiresNew.executeWithoutResult(status ->
+                    codeSequenceRepository.insert(SEQUENCE, first));
+        } catch (DataIntegrityViolationException e) {
+            // node khac da tao truoc
+        }
+    }
+}
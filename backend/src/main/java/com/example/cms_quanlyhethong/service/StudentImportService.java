@@ -0,0 +1,331 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.config.OffloadingPasswordEncoder;
+import com.example.cms_quanlyhethong.dto.request.student.StudentCreateRequest;
+import com.example.cms_quanlyhethong.dto.response.student.StudentImportResponse;
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.entity.Student;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.event.StatsChangedEvent;
+import com.example.cms_quanlyhethong.event.UserChangedEvent;
+import com.example.cms_quanlyhethong.repository.StudentRepository;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import com.example.cms_quanlyhethong.until.CsvUntil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ==========================================
+ * IMPORT SINH VIÊN HÀNG LOẠT (CSV / JSON)
+ * ==========================================
+ * Luồng:
+ * 1. Đọc file → danh sách dòng (lỗi định dạng ghi vào báo cáo)
+ * 2. Validate bằng query theo tập hợp (IN ...) thay vì exists() từng dòng
+ * 3. Mã hóa mật khẩu mặc định song song trên pool giới hạn (passwordHashExecutor); pool đầy → BusyException
+ * 4. Ghi users, user_roles, students bằng Hibernate batch (id từ pooled sequence), mỗi CHUNK_SIZE dòng 1 transaction
+ * 5. Trả về báo cáo: tổng, thành công, lỗi từng dòng
+ *
+ * Chunk lỗi (vd: trùng dữ liệu do request khác chen vào) chỉ rollback chunk đó,
+ * các chunk khác vẫn được lưu.
+ */
+@Slf4j
+@Service
+public class StudentImportService {
+
+    private static final String DEFAULT_PASSWORD = "123456"; // giống createStudent
+    private static final int CHUNK_SIZE = 500;
+    private static final int IN_CLAUSE_SIZE = 1000;
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+    private static final int HASH_WAVE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final StudentRepository studentRepository;
+    private final UserRepository userRepository;
+    private final RoleCatalog roleCatalog;
+    private final OffloadingPasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public StudentImportService(StudentRepository studentRepository,
+                                UserRepository userRepository,
+                                RoleCatalog roleCatalog,
+                                OffloadingPasswordEncoder passwordEncoder,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher) {
+        this.studentRepository = studentRepository;
+        this.userRepository = userRepository;
+        this.roleCatalog = roleCatalog;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // 1 dòng trong file + số thứ tự dòng (tính từ 1)
+    private record ImportRow(int row, StudentCreateRequest request) {
+    }
+
+    public StudentImportResponse importStudents(MultipartFile file) throws IOException {
+        List<StudentImportResponse.RowError> errors = new ArrayList<>();
+
+        // BƯỚC 1: Đọc file
+        List<ImportRow> rows = isJson(file) ? readJson(file) : readCsv(file, errors);
+        int total = rows.size() + errors.size();
+
+        // BƯỚC 2: Validate
+        List<ImportRow> valid = validate(rows, errors);
+
+        // Role STUDENT chỉ tìm 1 lần cho cả file
+        Role studentRole = roleCatalog.findByName("ROLE_STUDENT")
+                .orElseThrow(() -> new RuntimeException("Role STUDENT không tồn tại"));
+
+        // BƯỚC 3: Hash mật khẩu cho cả file trước khi ghi chunk nào
+        // Pool hash đầy → BusyException ném ra ngoài (controller trả 503 + Retry-After),
+        // chưa dòng nào được ghi → client gửi lại nguyên file được
+        List<String> allHashes = hashPasswords(valid.size());
+
+        // BƯỚC 4: Ghi từng chunk
+        int imported = 0;
+        for (int from = 0; from < valid.size(); from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, valid.size());
+            List<ImportRow> chunk = valid.subList(from, to);
+            List<String> hashes = allHashes.subList(from, to);
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertChunk(chunk, hashes, studentRole));
+                imported += chunk.size();
+            } catch (RuntimeException e) {
+                String message = saveErrorMessage(e);
+                for (ImportRow r : chunk) {
+                    errors.add(error(r, message));
+                }
+            }
+        }
+
+        errors.sort(Comparator.comparingInt(StudentImportResponse.RowError::getRow));
+        return StudentImportResponse.builder()
+                .total(total)
+                .imported(imported)
+                .failed(errors.size())
+                .errors(errors)
+                .build();
+    }
+
+    // Lỗi SQL / driver không đưa thẳng cho người dùng, chi tiết ghi log
+    private String saveErrorMessage(RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException) {
+            log.warn("Import chunk rejected by constraint: {}", e.getMessage());
+            return "Không lưu được: dữ liệu trùng với bản ghi vừa được tạo (mã SV / email / username) "
+                    + "hoặc vượt độ dài cho phép, cả nhóm " + CHUNK_SIZE + " dòng chứa dòng này chưa được lưu";
+        }
+        log.error("Import chunk failed", e);
+        return "Lỗi hệ thống khi lưu, cả nhóm " + CHUNK_SIZE + " dòng chứa dòng này chưa được lưu";
+    }
+
+    // ========== ĐỌC FILE ==========
+    private boolean isJson(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        String type = file.getContentType();
+        return (name != null && name.toLowerCase().endsWith(".json"))
+                || (type != null && type.contains("json"));
+    }
+
+    private List<ImportRow> readJson(MultipartFile file) throws IOException {
+        List<StudentCreateRequest> requests = objectMapper.readValue(
+                file.getInputStream(), new TypeReference<List<StudentCreateRequest>>() {});
+        List<ImportRow> rows = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            rows.add(new ImportRow(i + 1, requests.get(i)));
+        }
+        return rows;
+    }
+
+    // Dòng đầu là header, cột được nhận theo tên (không phân biệt hoa thường, thứ tự tùy ý):
+    // studentcode,fullname,dateofbirth,email,phone,address,major,classname
+    private List<ImportRow> readCsv(MultipartFile file, List<StudentImportResponse.RowError> errors) throws IOException {
+        List<ImportRow> rows = new ArrayList<>();
+        SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN);
+        dateFormat.setLenient(false);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return rows;
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> header = CsvUntil.parseLine(headerLine.replace("\uFEFF", ""));
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).toLowerCase(), i);
+            }
+
+            String line;
+            int rowNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                // Dòng trống vẫn được đếm → số dòng trong báo cáo khớp với file
+                rowNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> values = CsvUntil.parseLine(line);
+                StudentCreateRequest request = new StudentCreateRequest();
+                request.setStudentcode(column(values, columns, "studentcode"));
+                request.setFullname(column(values, columns, "fullname"));
+                request.setEmail(column(values, columns, "email"));
+                request.setPhone(column(values, columns, "phone"));
+                request.setAddress(column(values, columns, "address"));
+                request.setMajor(column(values, columns, "major"));
+                request.setClassname(column(values, columns, "classname"));
+                String dob = column(values, columns, "dateofbirth");
+                if (dob != null) {
+                    try {
+                        request.setDateofbirth(dateFormat.parse(dob));
+                    } catch (ParseException e) {
+                        errors.add(new StudentImportResponse.RowError(rowNumber, request.getStudentcode(),
+                                "Ngày sinh không hợp lệ (cần " + DATE_PATTERN + "): " + dob));
+                        continue;
+                    }
+                }
+                rows.add(new ImportRow(rowNumber, request));
+            }
+        }
+        return rows;
+    }
+
+    private String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+
+    // ========== VALIDATE ==========
+    // Trùng trong file + trùng trong DB (kiểm tra cả danh sách bằng IN, không query từng dòng)
+    private List<ImportRow> validate(List<ImportRow> rows, List<StudentImportResponse.RowError> errors) {
+        Set<String> seenCodes = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<ImportRow> candidates = new ArrayList<>();
+        for (ImportRow r : rows) {
+            StudentCreateRequest req = r.request();
+            if (isBlank(req.getStudentcode()) || isBlank(req.getEmail()) || isBlank(req.getFullname())) {
+                errors.add(error(r, "Thiếu studentcode, fullname hoặc email"));
+            } else if (!seenCodes.add(req.getStudentcode())) {
+                errors.add(error(r, "Mã sinh viên bị trùng trong file: " + req.getStudentcode()));
+            } else if (!seenEmails.add(req.getEmail())) {
+                errors.add(error(r, "Email bị trùng trong file: " + req.getEmail()));
+            } else {
+                candidates.add(r);
+            }
+        }
+
+        Set<String> existingCodes = new HashSet<>();
+        Set<String> existingEmails = new HashSet<>();
+        Set<String> existingUsernames = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += IN_CLAUSE_SIZE) {
+            List<ImportRow> slice = candidates.subList(from, Math.min(from + IN_CLAUSE_SIZE, candidates.size()));
+            List<String> codes = slice.stream().map(r -> r.request().getStudentcode()).toList();
+            List<String> emails = slice.stream().map(r -> r.request().getEmail()).toList();
+            existingCodes.addAll(studentRepository.findExistingStudentCodes(codes));
+            existingEmails.addAll(studentRepository.findExistingEmails(emails));
+            existingUsernames.addAll(userRepository.findExistingUsernames(codes)); // username = mã SV
+        }
+
+        List<ImportRow> valid = new ArrayList<>(candidates.size());
+        for (ImportRow r : candidates) {
+            StudentCreateRequest req = r.request();
+            if (existingCodes.contains(req.getStudentcode())) {
+                errors.add(error(r, "Mã sinh viên đã tồn tại: " + req.getStudentcode()));
+            } else if (existingUsernames.contains(req.getStudentcode())) {
+                errors.add(error(r, "Username đã tồn tại: " + req.getStudentcode()));
+            } else if (existingEmails.contains(req.getEmail())) {
+                errors.add(error(r, "Email đã tồn tại: " + req.getEmail()));
+            } else {
+                valid.add(r);
+            }
+        }
+        return valid;
+    }
+
+    // ========== HASH MẬT KHẨU SONG SONG ==========
+    // Mỗi dòng 1 hash riêng (salt khác nhau), chạy trên pool giới hạn số core
+    // Gửi từng đợt HASH_WAVE việc để không chiếm hết hàng đợi của pool (login vẫn chen vào được)
+    private List<String> hashPasswords(int count) {
+        List<String> hashes = new ArrayList<>(count);
+        for (int from = 0; from < count; from += HASH_WAVE) {
+            List<CompletableFuture<String>> futures = new ArrayList<>(HASH_WAVE);
+            for (int i = from; i < Math.min(from + HASH_WAVE, count); i++) {
+                futures.add(passwordEncoder.encodeAsync(DEFAULT_PASSWORD));
+            }
+            futures.forEach(f -> hashes.add(f.join()));
+        }
+        return hashes;
+    }
+
+    // ========== GHI 1 CHUNK BẰNG HIBERNATE BATCH ==========
+    // Id lấy từ pooled sequence (không cần INSERT xong mới có id) → Hibernate gom
+    // INSERT users / students / user_roles thành JDBC batch (hibernate.jdbc.batch_size)
+    private void insertChunk(List<ImportRow> chunk, List<String> hashes, Role studentRole) {
+        // 1. users + students (Student lưu qua cascade của User)
+        List<User> users = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            StudentCreateRequest req = chunk.get(i).request();
+            User user = new User();
+            user.setUsername(req.getStudentcode()); // username = mã SV
+            user.setPassword(hashes.get(i));
+            user.setEmail(req.getEmail());
+            user.setFullname(req.getFullname());
+            user.setIsActive(true);
+            user.setRoles(Set.of(studentRole));
+
+            Student student = new Student();
+            student.setStudentCode(req.getStudentcode());
+            student.setFullName(req.getFullname());
+            student.setDateOfBirth(req.getDateofbirth());
+            student.setEmail(req.getEmail());
+            student.setPhone(req.getPhone());
+            student.setAddress(req.getAddress());
+            student.setMajor(req.getMajor());
+            student.setClassName(req.getClassname());
+            student.setUser(user);
+            user.setStudent(student);
+            users.add(user);
+        }
+
+        // 2. persist → id được gán ngay, SQL gửi theo batch khi transaction commit
+        List<User> saved = userRepository.saveAll(users);
+        List<Long> userIds = saved.stream().map(User::getId).toList();
+
+        // 3. Báo cho search index + dashboard stats (listener chạy sau khi chunk commit)
+        StatsChangedEvent.UserFacts userFacts = new StatsChangedEvent.UserFacts(true, Set.of(studentRole.getName()));
+        for (int i = 0; i < chunk.size(); i++) {
+            StudentCreateRequest req = chunk.get(i).request();
+            eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.CREATED,
+                    userIds.get(i), req.getStudentcode(), req.getEmail(), req.getFullname()));
+            eventPublisher.publishEvent(new StatsChangedEvent(null, userFacts,
+                    null, new StatsChangedEvent.StudentFacts(req.getMajor(), req.getClassname())));
+        }
+    }
+
+    private StudentImportResponse.RowError error(ImportRow r, String message) {
+        return new StudentImportResponse.RowError(r.row(), r.request().getStudentcode(), message);
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
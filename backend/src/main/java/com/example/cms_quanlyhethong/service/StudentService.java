@@ -2,30 +2,45 @@ package com.example.cms_quanlyhethong.service;
 
 import com.example.cms_quanlyhethong.dto.request.student.StudentCreateRequest;
 import com.example.cms_quanlyhethong.dto.request.student.StudentUpdateRequest;
+import com.example.cms_quanlyhethong.dto.response.common.PageResponse;
 import com.example.cms_quanlyhethong.dto.response.student.StudentResponse;
+import com.example.cms_quanlyhethong.dto.response.student.StudentVersion;
 import com.example.cms_quanlyhethong.entity.Role;
 import com.example.cms_quanlyhethong.entity.Student;
 import com.example.cms_quanlyhethong.entity.User;
-import com.example.cms_quanlyhethong.repository.RoleRepository;
+import com.example.cms_quanlyhethong.event.StatsChangedEvent;
+import com.example.cms_quanlyhethong.event.UserChangedEvent;
 import com.example.cms_quanlyhethong.repository.StudentRepository;
 import com.example.cms_quanlyhethong.repository.UserRepository;
+import com.example.cms_quanlyhethong.until.PageUntil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 @Service
 public class StudentService {
 
+    // Các field được phép dùng trong ?sort=
+    private static final Set<String> SORT_FIELDS = Set.of(
+            "id", "studentCode", "fullName", "email", "major", "className", "createdAt");
+
     @Autowired
     private StudentRepository studentRepository;
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleCatalog roleCatalog; // cache role trong bộ nhớ
     @Autowired
     private UserRepository userRepository;
     @Autowired // Inject từ SecurityConfig
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     /**
      * ==========================================
      * 0. CONVERT ENTITY → DTO (Private method)
@@ -53,18 +68,65 @@ public class StudentService {
      * 1. LẤY TẤT CẢ SINH VIÊN
      * ==========================================
      * Luồng:
-     * 1. Gọi Repository lấy List<Student> từ DB
-     * 2. Convert từng Student → StudentResponse
-     * 3. Trả về List<StudentResponse>
+     * 1. Gọi Repository đọc thẳng ra StudentResponse (projection)
+     * 2. Trả về List<StudentResponse>
+     *
+     * Không load entity → không có snapshot dirty-checking, ít rác cho GC
      */
+    @Transactional(readOnly = true)
     public List<StudentResponse> getAllStudents() {
-        // Lấy tất cả sinh viên từ DB
-        List<Student> students = studentRepository.findAll();
+        return studentRepository.findAllAsResponse();
+    }
 
-        // Convert List<Student> → List<StudentResponse>
-        return students.stream()
-                .map(this::convertToResponse)  // Gọi method convertToResponse cho từng student
-                .collect(Collectors.toList());
+    /**
+     * ==========================================
+     * 1b. LẤY SINH VIÊN THEO TRANG (page/size/sort)
+     * ==========================================
+     * Luồng:
+     * 1. Tạo Pageable từ page, size, sort
+     * 2. Repository chỉ lấy đúng 1 trang (LIMIT/OFFSET) + đếm tổng, đọc thẳng ra DTO
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<StudentResponse> getStudentsPage(Integer page, Integer size, String sort) {
+        Page<StudentResponse> result = studentRepository.findPageAsResponse(
+                PageUntil.toPageable(page, size, sort, SORT_FIELDS));
+        return PageResponse.<StudentResponse>builder()
+                .content(result.getContent())
+                .page(result.getNumber())
+                .size(result.getSize())
+                .totalElements(result.getTotalElements())
+                .totalPages(result.getTotalPages())
+                .hasNext(result.hasNext())
+                .build();
+    }
+
+    /**
+     * ==========================================
+     * 1c. LẤY SINH VIÊN THEO CURSOR (keyset)
+     * ==========================================
+     * Luồng:
+     * 1. Giải mã cursor → id cuối cùng của trang trước
+     * 2. Lấy size + 1 dòng có id > lastId (biết được còn trang sau hay không)
+     * 3. Trả về nextCursor = id cuối cùng của trang này
+     *
+     * Không dùng OFFSET và không COUNT → trang sâu tốn như trang đầu
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<StudentResponse> getStudentsAfter(String cursor, Integer size) {
+        int pageSize = PageUntil.clampSize(size);
+        List<StudentResponse> students = studentRepository.findAsResponseAfter(
+                PageUntil.decodeCursor(cursor), Limit.of(pageSize + 1));
+
+        boolean hasNext = students.size() > pageSize;
+        if (hasNext) {
+            students = students.subList(0, pageSize);
+        }
+        return PageResponse.<StudentResponse>builder()
+                .content(students)
+                .size(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? PageUntil.encodeCursor(students.get(students.size() - 1).getId()) : null)
+                .build();
     }
 
     /**
@@ -85,6 +147,16 @@ public class StudentService {
         return convertToResponse(student);
     }
 
+    /*
+    Phien ban sinh vien cho ETag: 1 query 3 cot, khong dung DTO
+    @throws RuntimeException neu khong tim thay
+     */
+    @Transactional(readOnly = true)
+    public StudentVersion getStudentVersion(Long id) {
+        return studentRepository.findVersionById(id)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy sinh viên với ID: " + id));
+    }
+
     /**
      * ==========================================
      * 3. TẠO SINH VIÊN MỚI
@@ -114,10 +186,12 @@ public class StudentService {
         user.setFullname(request.getFullname());
         user.setIsActive(true);
         //BƯỚC 4 : Thêm Role vào Student
-        Role studentRole = roleRepository.findByName("ROLE_STUDENT")
+        Role studentRole = roleCatalog.findByName("ROLE_STUDENT")
                 .orElseThrow(() -> new RuntimeException("Role STUDENT không tồn tại"));
         user.getRoles().add(studentRole);
         User savedUser = userRepository.save(user); //luu User truoc
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.CREATED,
+                savedUser.getId(), savedUser.getUsername(), savedUser.getEmail(), savedUser.getFullname()));
 
         // BƯỚC 5: Convert DTO → Entity (Tao Student)
         Student student = new Student();
@@ -134,6 +208,8 @@ public class StudentService {
 
         // BƯỚC 4: Lưu vào DB
         Student savedStudent = studentRepository.save(student);
+        eventPublisher.publishEvent(new StatsChangedEvent(null, StatsChangedEvent.UserFacts.of(savedUser),
+                null, StatsChangedEvent.StudentFacts.of(savedStudent)));
 
         // BƯỚC 5: Convert Entity → DTO và trả về
         return convertToResponse(savedStudent);
@@ -154,6 +230,7 @@ public class StudentService {
         // BƯỚC 1: Tìm sinh viên cần update
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy sinh viên với ID: " + id));
+        StatsChangedEvent.StudentFacts before = StatsChangedEvent.StudentFacts.of(student);
 
         // BƯỚC 2: Validate email (nếu có thay đổi)
         if (request.getEmail() != null && !request.getEmail().equals(student.getEmail())) {
@@ -187,6 +264,7 @@ public class StudentService {
 
         // BƯỚC 4: Lưu vào DB
         Student updatedStudent = studentRepository.save(student);
+        eventPublisher.publishEvent(StatsChangedEvent.student(before, StatsChangedEvent.StudentFacts.of(updatedStudent)));
 
         // BƯỚC 5: Convert Entity → DTO và trả về
         return convertToResponse(updatedStudent);
@@ -217,6 +295,7 @@ public class StudentService {
 
         // BƯỚC 3: Xóa
         studentRepository.deleteById(id);
+        eventPublisher.publishEvent(StatsChangedEvent.student(StatsChangedEvent.StudentFacts.of(student), null));
     }
 
 
@@ -1,35 +1,65 @@
 package com.example.cms_quanlyhethong.service;
 
+import com.example.cms_quanlyhethong.dto.request.user.BulkRoleRequest;
 import com.example.cms_quanlyhethong.dto.request.user.UserCreateRequest;
 import com.example.cms_quanlyhethong.dto.request.user.UserUpdateRequest;
+import com.example.cms_quanlyhethong.dto.response.common.PageResponse;
+import com.example.cms_quanlyhethong.dto.response.user.BulkRoleResponse;
 import com.example.cms_quanlyhethong.dto.response.user.UserResponse;
+import com.example.cms_quanlyhethong.dto.response.user.UserVersion;
 import com.example.cms_quanlyhethong.entity.Role;
 import com.example.cms_quanlyhethong.entity.Student;
 import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.event.StatsChangedEvent;
+import com.example.cms_quanlyhethong.event.UserChangedEvent;
+import com.example.cms_quanlyhethong.event.UserRolesChangedEvent;
 import com.example.cms_quanlyhethong.mapper.UserMapper;
-import com.example.cms_quanlyhethong.repository.RoleRepository;
 import com.example.cms_quanlyhethong.repository.StudentRepository;
 import com.example.cms_quanlyhethong.repository.UserRepository;
+import com.example.cms_quanlyhethong.search.UserSearchIndex;
+import com.example.cms_quanlyhethong.search.UserSearchResult;
+import com.example.cms_quanlyhethong.until.ETagUntil;
+import com.example.cms_quanlyhethong.until.PageUntil;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class UserService {
 
+    // Các field được phép dùng trong ?sort=
+    private static final Set<String> SORT_FIELDS = Set.of(
+            "id", "username", "email", "fullname", "isActive", "createdAt");
+    private static final int IN_CLAUSE_SIZE = 1000;
+
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleCatalog roleCatalog;
     private final StudentRepository studentRepository;  // ← THÊM DÒNG NÀY
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserSearchIndex userSearchIndex;
+    private final StudentCodeAllocator studentCodeAllocator;
 
     // ========== CREATE USER ==========
     public UserResponse createUser(UserCreateRequest request) {
@@ -52,49 +82,128 @@ public class UserService {
         user.setIsActive(request.getIsActive() != null ? request.getIsActive() : true);
 
         // 4. Gán roles
-        Set<Role> roles = new HashSet<>();
-        for (Long roleId : request.getRoleIds()) {
-            Role role = roleRepository.findById(roleId)
-                    .orElseThrow(() -> new RuntimeException("Role not found: " + roleId));
-            roles.add(role);
-        }
+        // Tra role từ RoleCatalog (cache), không query DB
+        Set<Role> roles = roleCatalog.resolveAll(request.getRoleIds());
         user.setRoles(roles);
 
-        // 5. Lưu vào database
-        User savedUser = userRepository.save(user);
-
-        // ========== 6. TỰ ĐỘNG TẠO STUDENT NẾU CÓ ROLE_STUDENT ==========
+        // ========== 5. TỰ ĐỘNG TẠO STUDENT NẾU CÓ ROLE_STUDENT ==========
+        // Mã SV cấp từ StudentCodeAllocator, không cần id của user
+        // → tạo Student cùng lúc, lưu 1 lần qua cascade của User
+        Student createdStudent = null;
         boolean hasStudentRole = roles.stream()
                 .anyMatch(role -> role.getName().equals("ROLE_STUDENT"));
 
         if (hasStudentRole) {
-            Student student = new Student();
-
-            // Generate mã sinh viên tự động: SV001, SV002, ...
-            String studentCode = "SV" + String.format("%03d", savedUser.getId());
-
-            student.setStudentCode(studentCode);
-            student.setFullName(savedUser.getFullname());
-            student.setEmail(savedUser.getEmail());
-            student.setUser(savedUser);
-
-            studentRepository.save(student);
-
-            System.out.println("✅ Auto-created Student: " + studentCode + " for User: " + savedUser.getUsername());
+            createdStudent = newStudentFor(user);
+            log.info("Auto-created Student: {} for User: {}", createdStudent.getStudentCode(), user.getUsername());
         }
         // =================================================================
 
+        // 6. Lưu vào database
+        User savedUser = userRepository.save(user);
+
+        publishChanged(UserChangedEvent.Type.CREATED, savedUser);
+        eventPublisher.publishEvent(new StatsChangedEvent(
+                null, StatsChangedEvent.UserFacts.of(savedUser), null, StatsChangedEvent.StudentFacts.of(createdStudent)));
+
         // 7. Convert sang DTO và return
         return userMapper.toResponse(savedUser);
     }
 
     // ========== GET ALL USERS ==========
+    // Projection: đọc thẳng ra UserResponse, không load entity (read-only transaction)
+    @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(userMapper::toResponse)
+        return withRoles(userRepository.findAllAsResponse(), true);
+    }
+
+    // ========== GET USERS PAGE (page/size/sort) ==========
+    @Transactional(readOnly = true)
+    public PageResponse<UserResponse> getUsersPage(Integer page, Integer size, String sort) {
+        // 1 query lấy id của trang + 1 query đếm + 1 query user/student + 1 query roles
+        Page<Long> result = userRepository.findIdPage(PageUntil.toPageable(page, size, sort, SORT_FIELDS));
+        return PageResponse.<UserResponse>builder()
+                .content(loadInOrder(result.getContent()))
+                .page(result.getNumber())
+                .size(result.getSize())
+                .totalElements(result.getTotalElements())
+                .totalPages(result.getTotalPages())
+                .hasNext(result.hasNext())
+                .build();
+    }
+
+    // ========== GET USERS AFTER CURSOR (keyset) ==========
+    // Lấy size + 1 dòng có id > lastId, không OFFSET, không COUNT → trang sâu tốn như trang đầu
+    @Transactional(readOnly = true)
+    public PageResponse<UserResponse> getUsersAfter(String cursor, Integer size) {
+        int pageSize = PageUntil.clampSize(size);
+        List<Long> ids = userRepository.findIdsAfter(PageUntil.decodeCursor(cursor), Limit.of(pageSize + 1));
+
+        boolean hasNext = ids.size() > pageSize;
+        if (hasNext) {
+            ids = ids.subList(0, pageSize);
+        }
+        return PageResponse.<UserResponse>builder()
+                .content(loadInOrder(ids))
+                .size(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? PageUntil.encodeCursor(ids.get(ids.size() - 1)) : null)
+                .build();
+    }
+
+    // Load users (kèm student, roles) theo danh sách id, giữ đúng thứ tự của ids
+    private List<UserResponse> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<UserResponse> users = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_SIZE) {
+            users.addAll(userRepository.findAsResponseByIdIn(
+                    ids.subList(from, Math.min(from + IN_CLAUSE_SIZE, ids.size()))));
+        }
+        Map<Long, UserResponse> byId = withRoles(users, false).stream()
+                .collect(Collectors.toMap(UserResponse::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    // Gắn roles cho danh sách UserResponse lấy từ projection
+    // - allUsers = true: lấy role của mọi user trong 1 query (không cần IN)
+    // - ngược lại: query theo IN (id), mỗi lần tối đa IN_CLAUSE_SIZE id
+    // Mỗi role chỉ tạo 1 RoleResponse, dùng chung cho mọi user
+    private List<UserResponse> withRoles(List<UserResponse> users, boolean allUsers) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Map<Long, UserResponse> byId = users.stream()
+                .collect(Collectors.toMap(UserResponse::getId, Function.identity()));
+        List<Object[]> rows;
+        if (allUsers) {
+            rows = userRepository.findAllRoleRows();
+        } else {
+            rows = new ArrayList<>();
+            List<Long> ids = new ArrayList<>(byId.keySet());
+            for (int from = 0; from < ids.size(); from += IN_CLAUSE_SIZE) {
+                rows.addAll(userRepository.findRoleRowsByUserIdIn(
+                        ids.subList(from, Math.min(from + IN_CLAUSE_SIZE, ids.size()))));
+            }
+        }
+
+        Map<Long, UserResponse.RoleResponse> roles = new HashMap<>();
+        for (Object[] row : rows) {
+            UserResponse user = byId.get((Long) row[0]);
+            if (user == null) {
+                continue;
+            }
+            UserResponse.RoleResponse role = roles.computeIfAbsent((Long) row[1],
+                    roleId -> new UserResponse.RoleResponse(roleId, (String) row[2], (String) row[3]));
+            user.getRoles().add(role);
+        }
+        return users;
+    }
+
     // ========== GET USER BY ID ==========
     public UserResponse getUserById(Long id) {
         User user = userRepository.findById(id)
@@ -102,6 +211,16 @@ public class UserService {
         return userMapper.toResponse(user);
     }
 
+    // ========== ETAG CỦA USER ==========
+    // Ghép mốc sửa của user, của sinh viên đi kèm và phiên bản bảng roles (UserResponse có tên role)
+    // 1 query nhỏ, không dựng UserResponse
+    @Transactional(readOnly = true)
+    public String getUserETag(Long id) {
+        UserVersion version = userRepository.findVersionById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        return ETagUntil.of("u", version.id(), version.updatedAt(), version.studentUpdatedAt(), roleCatalog.version());
+    }
+
     // ========== GET USER BY USERNAME ==========
     public UserResponse getUserByUsername(String username) {
         User user = userRepository.findByUsername(username)
@@ -114,6 +233,8 @@ public class UserService {
         // 1. Tìm user
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        StatsChangedEvent.UserFacts before = StatsChangedEvent.UserFacts.of(user);
+        Student createdStudent = null;
 
         // 2. Update username (nếu có)
         if (request.getUsername() != null) {
@@ -122,12 +243,16 @@ public class UserService {
                     userRepository.existsByUsername(request.getUsername())) {
                 throw new RuntimeException("Username already exists: " + request.getUsername());
             }
+            if (!user.getUsername().equals(request.getUsername())) {
+                revokeTokens(user);
+            }
             user.setUsername(request.getUsername());
         }
 
         // 3. Update password (nếu có)
         if (request.getPassword() != null && !request.getPassword().isEmpty()) {
             user.setPassword(passwordEncoder.encode(request.getPassword()));
+            revokeTokens(user);
         }
 
         // 4. Update email (nếu có)
@@ -146,18 +271,21 @@ public class UserService {
 
         // 6. Update isActive (nếu có)
         if (request.getIsActive() != null) {
+            if (user.getIsActive() && !request.getIsActive()) {
+                revokeTokens(user);
+            }
             user.setIsActive(request.getIsActive());
         }
 
         // 7. Update roles (nếu có)
         if (request.getRoleIds() != null && !request.getRoleIds().isEmpty()) {
-            Set<Role> roles = new HashSet<>();
-            for (Long roleId : request.getRoleIds()) {
-                Role role = roleRepository.findById(roleId)
-                        .orElseThrow(() -> new RuntimeException("Role not found: " + roleId));
-                roles.add(role);
+            Set<Role> roles = roleCatalog.resolveAll(request.getRoleIds());
+            if (!roleIds(roles).equals(roleIds(user.getRoles()))) {
+                revokeTokens(user); // token chua danh sach role cu
             }
             user.setRoles(roles);
+            // Chi doi bang user_roles → Hibernate khong coi user la dirty, tu cap nhat moc sua (ETag)
+            user.setUpdatedAt(new Date());
 
             // ========== TỰ ĐỘNG TẠO STUDENT NẾU THÊM ROLE_STUDENT ==========
             boolean hasStudentRole = roles.stream()
@@ -165,21 +293,18 @@ public class UserService {
 
             if (hasStudentRole && user.getStudent() == null) {
                 // User có role STUDENT nhưng chưa có Student record
-                Student student = new Student();
-                String studentCode = "SV" + String.format("%03d", user.getId());
-                student.setStudentCode(studentCode);
-                student.setFullName(user.getFullname());
-                student.setEmail(user.getEmail());
-                student.setUser(user);
-                studentRepository.save(student);
-
-                System.out.println("✅ Auto-created Student: " + studentCode + " when updating User: " + user.getUsername());
+                createdStudent = newStudentFor(user);
+
+                log.info("Auto-created Student: {} when updating User: {}", createdStudent.getStudentCode(), user.getUsername());
             }
             // ================================================================
         }
 
         // 8. Lưu và return
         User updatedUser = userRepository.save(user);
+        publishChanged(UserChangedEvent.Type.UPDATED, updatedUser);
+        eventPublisher.publishEvent(new StatsChangedEvent(
+                before, StatsChangedEvent.UserFacts.of(updatedUser), null, StatsChangedEvent.StudentFacts.of(createdStudent)));
         return userMapper.toResponse(updatedUser);
     }
 
@@ -193,7 +318,11 @@ public class UserService {
             studentRepository.delete(user.getStudent());
         }
 
+        StatsChangedEvent stats = new StatsChangedEvent(StatsChangedEvent.UserFacts.of(user), null,
+                StatsChangedEvent.StudentFacts.of(user.getStudent()), null);
         userRepository.delete(user);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(id));
+        eventPublisher.publishEvent(stats);
     }
 
     // ========== ASSIGN ROLES ==========
@@ -201,67 +330,214 @@ public class UserService {
         // 1. Tìm user
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+        StatsChangedEvent.UserFacts before = StatsChangedEvent.UserFacts.of(user);
+        Student createdStudent = null;
 
-        // 2. Tìm roles
-        Set<Role> roles = new HashSet<>();
-        for (Long roleId : roleIds) {
-            Role role = roleRepository.findById(roleId)
-                    .orElseThrow(() -> new RuntimeException("Role not found: " + roleId));
-            roles.add(role);
-        }
+        // 2. Tìm roles (RoleCatalog, không query DB)
+        Set<Role> roles = roleCatalog.resolveAll(roleIds);
 
-        // 3. Gán roles
+        // 3. Gán roles (đổi mốc sửa để ETag của user đổi theo, token cũ mang role cũ → thu hồi)
+        if (!roleIds(roles).equals(roleIds(user.getRoles()))) {
+            revokeTokens(user);
+        }
         user.setRoles(roles);
+        user.setUpdatedAt(new Date());
 
         // ========== TỰ ĐỘNG TẠO STUDENT NẾU THÊM ROLE_STUDENT ==========
         boolean hasStudentRole = roles.stream()
                 .anyMatch(role -> role.getName().equals("ROLE_STUDENT"));
 
         if (hasStudentRole && user.getStudent() == null) {
-            Student student = new Student();
-            String studentCode = "SV" + String.format("%03d", user.getId());
-            student.setStudentCode(studentCode);
-            student.setFullName(user.getFullname());
-            student.setEmail(user.getEmail());
-            student.setUser(user);
-            studentRepository.save(student);
-
-            System.out.println("✅ Auto-created Student when assigning roles");
+            createdStudent = newStudentFor(user);
+
+            log.info("Auto-created Student: {} when assigning roles to User: {}", createdStudent.getStudentCode(), user.getUsername());
         }
         // ================================================================
 
         // 4. Lưu và return
         User updatedUser = userRepository.save(user);
+        publishChanged(UserChangedEvent.Type.UPDATED, updatedUser);
+        eventPublisher.publishEvent(new StatsChangedEvent(
+                before, StatsChangedEvent.UserFacts.of(updatedUser), null, StatsChangedEvent.StudentFacts.of(createdStudent)));
         return userMapper.toResponse(updatedUser);
     }
 
+    // ========== GÁN / GỠ ROLE HÀNG LOẠT ==========
+    // Không tải entity User, mỗi bước 1 câu SQL theo tập (mỗi IN tối đa IN_CLAUSE_SIZE id):
+    // 1. Chọn user theo ids hoặc filter
+    // 2. Bỏ user không đổi (ADD: đã có role, REMOVE: chưa có role)
+    // 3. INSERT ... SELECT / DELETE trên user_roles
+    // 4. Tăng status_version + update_at (thu hồi token mang role cũ, ETag đổi)
+    // 5. Gán ROLE_STUDENT → tạo Student còn thiếu, lưu theo batch
+    public BulkRoleResponse bulkAssignRole(BulkRoleRequest request) {
+        if (request.getAction() == null || request.getRoleId() == null) {
+            throw new RuntimeException("action and roleId are required");
+        }
+        Role role = roleCatalog.findById(request.getRoleId())
+                .orElseThrow(() -> new RuntimeException("Role not found with id: " + request.getRoleId()));
+        boolean add = request.getAction() == BulkRoleRequest.Action.ADD;
+
+        List<Long> matched = selectUsers(request);
+        Set<Long> having = new HashSet<>();
+        for (List<Long> chunk : chunks(matched)) {
+            having.addAll(userRepository.findIdsHavingRole(role.getId(), chunk));
+        }
+        List<Long> changed = matched.stream()
+                .filter(id -> add != having.contains(id))
+                .collect(Collectors.toList());
+
+        Date now = new Date();
+        int studentsCreated = 0;
+        for (List<Long> chunk : chunks(changed)) {
+            if (add) {
+                userRepository.insertRole(role.getId(), chunk);
+            } else {
+                userRepository.deleteRole(role.getId(), chunk);
+            }
+            userRepository.revokeTokensAndTouch(chunk, now);
+            if (add && role.getName().equals("ROLE_STUDENT")) {
+                studentsCreated += provisionStudents(chunk);
+            }
+        }
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new UserRolesChangedEvent(role.getName(), add, changed, studentsCreated));
+        }
+        log.info("Bulk {} {}: matched {}, changed {}, students created {}",
+                request.getAction(), role.getName(), matched.size(), changed.size(), studentsCreated);
+        return new BulkRoleResponse(role.getName(), request.getAction().name(), matched.size(), changed.size(),
+                studentsCreated);
+    }
+
+    // Id user được chọn: theo danh sách (bỏ id không tồn tại) hoặc theo filter
+    private List<Long> selectUsers(BulkRoleRequest request) {
+        boolean byIds = request.getUserIds() != null && !request.getUserIds().isEmpty();
+        if (byIds == (request.getFilter() != null)) {
+            throw new RuntimeException("Select users by either userIds or filter");
+        }
+        if (byIds) {
+            List<Long> existing = new ArrayList<>();
+            for (List<Long> chunk : chunks(new ArrayList<>(request.getUserIds()))) {
+                existing.addAll(userRepository.findExistingIds(chunk));
+            }
+            return existing;
+        }
+        BulkRoleRequest.Filter filter = request.getFilter();
+        String role = blankToNull(filter.getRole());
+        String className = blankToNull(filter.getClassName());
+        String major = blankToNull(filter.getMajor());
+        // filter rỗng = mọi user → bắt buộc ít nhất 1 điều kiện
+        if (role == null && className == null && major == null && filter.getActive() == null) {
+            throw new RuntimeException("Filter needs at least one condition");
+        }
+        return userRepository.findIdsByFilter(role, className, major, filter.getActive());
+    }
+
+    // Tạo Student cho các user chưa có; id (pooled sequence) + mã (theo khối) cấp trong bộ nhớ → INSERT theo batch
+    private int provisionStudents(List<Long> userIds) {
+        List<Student> students = new ArrayList<>();
+        List<Object[]> rows = userRepository.findRowsWithoutStudent(userIds);
+        Iterator<String> codes = studentCodeAllocator.nextCodes(rows.size()).iterator();
+        for (Object[] row : rows) {
+            Student student = new Student();
+            student.setStudentCode(codes.next());
+            student.setFullName((String) row[1]);
+            student.setEmail((String) row[2]);
+            student.setUser(userRepository.getReferenceById((Long) row[0]));
+            students.add(student);
+        }
+        studentRepository.saveAll(students);
+        return students.size();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
     // ========== GET USERS BY ROLE ==========
+    @Transactional(readOnly = true)
     public List<UserResponse> getUsersByRole(String roleName) {
-        return userRepository.findByRoleName(roleName).stream()
-                .map(userMapper::toResponse)
-                .collect(Collectors.toList());
+        return withRoles(userRepository.findAsResponseByRoleName(roleName), false);
     }
 
     // ========== GET ACTIVE USERS ==========
+    @Transactional(readOnly = true)
     public List<UserResponse> getActiveUsers() {
-        return userRepository.findByIsActive(true).stream()
-                .map(userMapper::toResponse)
-                .collect(Collectors.toList());
+        return withRoles(userRepository.findAsResponseByIsActive(true), false);
     }
 
     // ========== SEARCH USERS ==========
+    // Tìm qua UserSearchIndex (không LIKE '%kw%'), trả về đúng thứ tự xếp hạng
+    // Không phân trang: chỉ PageUntil.MAX_SIZE kết quả đầu (từ khóa ngắn như "a" khớp gần hết bảng) → cần thêm thì dùng ?page
+    @Transactional(readOnly = true)
     public List<UserResponse> searchUsers(String keyword) {
-        return userRepository.searchByKeyword(keyword).stream()
-                .map(userMapper::toResponse)
-                .collect(Collectors.toList());
+        UserSearchResult result = userSearchIndex.search(keyword, 0, PageUntil.MAX_SIZE);
+        return loadInOrder(result.getIds());
+    }
+
+    // ========== SEARCH USERS (PAGE) ==========
+    @Transactional(readOnly = true)
+    public PageResponse<UserResponse> searchUsersPage(String keyword, Integer page, Integer size) {
+        int pageSize = PageUntil.clampSize(size);
+        int pageNumber = page != null && page > 0 ? page : 0;
+        UserSearchResult result = userSearchIndex.search(keyword, pageNumber * pageSize, pageSize);
+        int totalPages = (int) ((result.getTotal() + pageSize - 1) / pageSize);
+        return PageResponse.<UserResponse>builder()
+                .content(loadInOrder(result.getIds()))
+                .page(pageNumber)
+                .size(pageSize)
+                .totalElements(result.getTotal())
+                .totalPages(totalPages)
+                .hasNext(pageNumber + 1 < totalPages)
+                .build();
     }
 
     // ========== ACTIVATE/DEACTIVATE USER ==========
     public UserResponse toggleUserStatus(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        StatsChangedEvent.UserFacts before = StatsChangedEvent.UserFacts.of(user);
         user.setIsActive(!user.getIsActive());
+        if (!user.getIsActive()) {
+            revokeTokens(user);
+        }
         User updatedUser = userRepository.save(user);
+        publishChanged(UserChangedEvent.Type.UPDATED, updatedUser);
+        eventPublisher.publishEvent(StatsChangedEvent.user(before, StatsChangedEvent.UserFacts.of(updatedUser)));
         return userMapper.toResponse(updatedUser);
     }
+
+    // Tạo Student gắn với user, lưu cùng user qua cascade (User.student = CascadeType.ALL)
+    private Student newStudentFor(User user) {
+        Student student = new Student();
+        student.setStudentCode(studentCodeAllocator.nextCode());
+        student.setFullName(user.getFullname());
+        student.setEmail(user.getEmail());
+        student.setUser(user);
+        user.setStudent(student);
+        return student;
+    }
+
+    // Token da cap cho user nay het hieu luc ngay (filter so claim sv voi UserStatusRegistry)
+    private static void revokeTokens(User user) {
+        user.setStatusVersion(user.getStatusVersion() + 1);
+    }
+
+    private static Set<Long> roleIds(Set<Role> roles) {
+        return roles.stream().map(Role::getId).collect(Collectors.toSet());
+    }
+
+    // Chia danh sách id thành các đoạn ≤ IN_CLAUSE_SIZE (giới hạn tham số của IN)
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + IN_CLAUSE_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    // Báo cho search index (và các listener khác) sau khi transaction commit
+    private void publishChanged(UserChangedEvent.Type type, User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(
+                type, user.getId(), user.getUsername(), user.getEmail(), user.getFullname()));
+    }
 }
\ No newline at end of file
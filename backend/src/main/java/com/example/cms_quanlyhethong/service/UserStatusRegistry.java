@@ -0,0 +1,168 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.dto.response.user.UserStatus;
+import com.example.cms_quanlyhethong.event.UserChangedEvent;
+import com.example.cms_quanlyhethong.event.UserRolesChangedEvent;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ==========================================
+ * THU HỒI TOKEN NGAY (USER STATUS REGISTRY)
+ * ==========================================
+ * JWT sống 24h, filter không đọc DB → khóa tài khoản thì token cũ vẫn dùng được.
+ * Cách làm:
+ * - users.status_version tăng khi token cũ phải bị thu hồi (khóa, đổi mật khẩu / role / username)
+ * - Token mang claim sv = status_version lúc đăng nhập
+ * - Bảng này giữ username → status_version trong bộ nhớ, filter so sánh bằng 1 lần get (O(1), không DB)
+ *
+ * Giá trị trong map: ≥ 0 = version của user đang active, INACTIVE = bị khóa, ABSENT = đã xóa / không tồn tại
+ *
+ * Đồng bộ:
+ * - Khởi động: nạp toàn bộ từ DB (chỉ 4 cột)
+ * - UserChangedEvent (sau commit): đọc lại đúng user đó; UserRolesChangedEvent: đọc lại cả nhóm bằng 1 query
+ * - Mỗi poll-interval-ms (mặc định 2s): đọc lại các user có update_at trong poll-lookback-ms gần nhất
+ *   (khóa, đổi mật khẩu / role / username đều cập nhật update_at) → thay đổi từ node khác
+ * - Định kỳ nạp lại toàn bộ (resync-interval-ms, mặc định 30s) → bắt được user bị xóa ở node khác
+ *   và thay đổi có update_at cũ hơn cửa sổ lookback (transaction commit rất chậm, lệch giờ lớn giữa các node)
+ * - Username chưa có trong map (user mới tạo ở node khác) → đọc DB 1 lần rồi giữ lại
+ *
+ * Giới hạn thu hồi giữa các node (token cũ còn dùng được ở node KHÁC node đã sửa user):
+ * - Khóa / đổi mật khẩu / role / username: tối đa poll-interval-ms
+ * - Xóa user: tối đa resync-interval-ms
+ * Node đã sửa user: ngay sau commit (qua event)
+ */
+@Component
+public class UserStatusRegistry {
+
+    private static final int INACTIVE = -1;
+    private static final int ABSENT = -2;
+    private static final int IN_CLAUSE_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final long pollLookbackMs;
+
+    // Ca 2 map chi bi thay / sua trong synchronized; doc khong khoa
+    private volatile Map<String, Integer> versions = new ConcurrentHashMap<>();
+    private volatile Map<Long, String> usernames = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserStatusRegistry(UserRepository userRepository,
+                              @Value("${security.user-status.poll-lookback-ms:30000}") long pollLookbackMs) {
+        this.userRepository = userRepository;
+        this.pollLookbackMs = pollLookbackMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    /*
+    Nap lai toan bo tu DB roi thay nguyen khoi
+    synchronized voi update() → su kien den trong luc nap khong bi ghi de boi du lieu cu
+     */
+    @Scheduled(initialDelayString = "${security.user-status.resync-interval-ms:30000}",
+            fixedDelayString = "${security.user-status.resync-interval-ms:30000}")
+    public synchronized void rebuild() {
+        List<UserStatus> statuses = userRepository.findAllStatuses();
+        Map<String, Integer> newVersions = new ConcurrentHashMap<>(statuses.size() * 2);
+        Map<Long, String> newUsernames = new ConcurrentHashMap<>(statuses.size() * 2);
+        for (UserStatus status : statuses) {
+            newVersions.put(status.username(), valueOf(status));
+            newUsernames.put(status.id(), status.username());
+        }
+        versions = newVersions;
+        usernames = newUsernames;
+    }
+
+    /*
+    Doc lai user vua sua (o node nay hoac node khac), it dong nho index update_at
+    Cua so lookback rong hon nhieu so voi chu ky poll → chiu duoc lech gio giua cac node va commit cham
+     */
+    @Scheduled(initialDelayString = "${security.user-status.poll-interval-ms:2000}",
+            fixedDelayString = "${security.user-status.poll-interval-ms:2000}")
+    public synchronized void pollChanges() {
+        userRepository.findStatusesUpdatedSince(new Date(System.currentTimeMillis() - pollLookbackMs))
+                .forEach(this::update);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.DELETED) {
+            remove(event.getUserId());
+            return;
+        }
+        userRepository.findStatusById(event.getUserId()).ifPresentOrElse(this::update,
+                () -> remove(event.getUserId()));
+    }
+
+    // Gan / go role hang loat (SQL theo tap): doc lai status cua cac user do theo IN
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRolesChanged(UserRolesChangedEvent event) {
+        List<Long> ids = event.getUserIds();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_SIZE) {
+            userRepository.findStatusesByIds(ids.subList(from, Math.min(from + IN_CLAUSE_SIZE, ids.size())))
+                    .forEach(this::update);
+        }
+    }
+
+    /*
+    Token (username, sv) con hieu luc khong: user ton tai, dang active, version khop
+     */
+    public boolean isCurrent(String username, int statusVersion) {
+        Integer current = versions.get(username);
+        if (current == null) {
+            current = load(username);
+        }
+        return current >= 0 && current == statusVersion;
+    }
+
+    /*
+    Ghi trang thai 1 user (doi username → bo ten cu, token mang ten cu het hieu luc)
+     */
+    public synchronized void update(UserStatus status) {
+        String previous = usernames.put(status.id(), status.username());
+        if (previous != null && !previous.equals(status.username())) {
+            versions.put(previous, ABSENT);
+        }
+        versions.put(status.username(), valueOf(status));
+    }
+
+    private synchronized void remove(Long userId) {
+        String username = usernames.remove(userId);
+        if (username != null) {
+            versions.put(username, ABSENT);
+        }
+    }
+
+    // Username chi den tu token da ky → so entry ABSENT khong vuot so username that
+    private synchronized int load(String username) {
+        Integer current = versions.get(username);
+        if (current != null) {
+            return current;
+        }
+        UserStatus status = userRepository.findStatusByUsername(username).orElse(null);
+        if (status == null) {
+            versions.put(username, ABSENT);
+            return ABSENT;
+        }
+        update(status);
+        return valueOf(status);
+    }
+
+    private static int valueOf(UserStatus status) {
+        return Boolean.TRUE.equals(status.active()) ? status.statusVersion() : INACTIVE;
+    }
+}
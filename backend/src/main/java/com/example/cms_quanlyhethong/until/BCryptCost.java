@@ -0,0 +1,73 @@
+package com.example.cms_quanlyhethong.until;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/*
+    Cost (log2 so vong) cua BCrypt
+    - calibrate: do thoi gian hash tren may dang chay, chon cost cao nhat ma 1 lan hash <= targetMs
+      (cost + 1 → thoi gian x2: do 1 lan o minCost roi ngoai suy, chi do lai cost da chon de xac nhan)
+    - of: doc cost tu chuoi hash da luu ("$2a$10$..." → 10)
+ */
+public final class BCryptCost {
+
+    private static final String SAMPLE = "calibration-password";
+    private static final int SAMPLES = 3;
+
+    public record Calibration(int cost, double hashMillis) {
+
+        // Nang len it nhat minCost (thoi gian uoc tinh x2 moi bac, khong do lai)
+        public Calibration atLeast(int minCost) {
+            return minCost <= cost ? this : new Calibration(minCost, hashMillis * (1L << (minCost - cost)));
+        }
+    }
+
+    private BCryptCost() {
+    }
+
+    public static Calibration calibrate(long targetMs, int minCost, int maxCost) {
+        // lam nong JIT o cost thap truoc khi do
+        BCryptPasswordEncoder warmup = new BCryptPasswordEncoder(4);
+        for (int i = 0; i < 20; i++) {
+            warmup.encode(SAMPLE);
+        }
+        double baseMillis = measure(minCost);
+        int cost = minCost;
+        while (cost < maxCost && baseMillis * (1L << (cost + 1 - minCost)) <= targetMs) {
+            cost++;
+        }
+        double millis = cost == minCost ? baseMillis : measure(cost);
+        // ngoai suy lech (turbo, cache) → lui lai cho toi khi dat muc tieu
+        while (cost > minCost && millis > targetMs) {
+            cost--;
+            millis = measure(cost);
+        }
+        return new Calibration(cost, millis);
+    }
+
+    // Thoi gian 1 lan hash (ms), lay lan nhanh nhat trong vai lan do → it nhieu
+    public static double measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000.0;
+    }
+
+    /*
+    Cost cua 1 hash BCrypt, -1 neu khong phai BCrypt
+     */
+    public static int of(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
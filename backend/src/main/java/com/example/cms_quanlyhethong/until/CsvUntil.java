@@ -0,0 +1,46 @@
+package com.example.cms_quanlyhethong.until;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Doc 1 dong CSV (RFC 4180 don gian):
+    - phan tach bang dau ,
+    - gia tri co the boc trong " ; "" ben trong = 1 dau "
+    Khong ho tro gia tri xuong dong ben trong dau "
+ */
+public final class CsvUntil {
+
+    private CsvUntil() {
+    }
+
+    public static List<String> parseLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString().trim());
+        return values;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.cms_quanlyhethong.until;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Date;
+import java.util.StringJoiner;
+
+/*
+    Ham dung chung cho conditional GET (ETag / If-None-Match):
+    - ETag manh ghep tu loai tai nguyen + id + cac moc phien ban, vd "s-12-1718000000000"
+    - Cache-Control: private, no-cache → trinh duyet duoc luu nhung phai hoi lai server moi lan
+      (Spring Security mac dinh gui no-store → trinh duyet khong bao gio gui If-None-Match)
+ */
+public final class ETagUntil {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ETagUntil() {
+    }
+
+    public static String of(String kind, Object... parts) {
+        StringJoiner joiner = new StringJoiner("-", "\"", "\"").add(kind);
+        for (Object part : parts) {
+            joiner.add(part instanceof Date date ? Long.toString(date.getTime()) : String.valueOf(part));
+        }
+        return joiner.toString();
+    }
+
+    // 304: client dang giu ban moi nhat, khong gui body
+    public static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
+    public static <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.cms_quanlyhethong.until;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/*
+    Chuan bi HttpServletResponse cho cac endpoint export:
+    set Content-Type / Content-Disposition, bat gzip neu client yeu cau,
+    tra ve Writer ghi thang ra socket (khong buffer ca file trong bo nho)
+ */
+public final class ExportUntil {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ExportUntil() {
+    }
+
+    public static Writer openWriter(HttpServletResponse response, String fileName,
+                                    String format, boolean gzip) throws IOException {
+        boolean csv = "csv".equals(format);
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"" + fileName + (csv ? ".csv" : ".ndjson") + "\"");
+
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.cms_quanlyhethong.until;
+
+import io.jsonwebtoken.Jwts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * ==========================================
+ * BỘ KHÓA KÝ JWT (KEY RING)
+ * ==========================================
+ * Khóa HS256 lưu trong file keystore PKCS12 (jwt.keys.path), mỗi khóa 1 alias = kid:
+ * - Restart không đổi khóa → token cũ vẫn dùng được, không ai phải đăng nhập lại
+ * - Nhiều node dùng chung 1 file (volume / secret mount) → token ký ở node này verify được ở node khác
+ *
+ * Token mang header kid → verify lấy khóa theo kid trong Map (O(1)), không thử lần lượt.
+ *
+ * Xoay khóa (refresh chạy định kỳ, giữ file lock khi sửa file):
+ * - Khóa mới nhất cũ hơn rotation-ms → sinh khóa mới, từ đó ký bằng khóa mới
+ * - Khóa cũ vẫn dùng để verify thêm overlap-ms (≥ thời hạn token) kể từ lúc bị thay rồi mới xóa
+ * - Ghi ra file tạm rồi đổi tên → node khác không bao giờ đọc phải file ghi dở
+ *
+ * Gặp kid lạ (node khác vừa xoay khóa) → đọc lại file ngay (tối đa 1 lần / giây)
+ *
+ * Mật khẩu keystore (jwt.keys.password ← JWT_KEYS_PASSWORD) không có giá trị mặc định:
+ * ai đọc được file + biết mật khẩu là ký được token ADMIN → thiếu / rỗng thì không cho khởi động
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    public record SigningKey(String kid, SecretKey key, long createdAt) {
+    }
+
+    // Anh chup bat bien: khoa dang ky + toan bo khoa verify theo kid
+    private record Snapshot(SigningKey active, Map<String, SecretKey> byKid) {
+    }
+
+    private static final long MISS_RELOAD_INTERVAL_MS = 1000;
+    // FileLock giu theo ca JVM: cac instance trong cung JVM (vd nhieu Spring context khi test) xep hang o day truoc
+    private static final Object FILE_LOCK = new Object();
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Pattern KID = Pattern.compile("[0-9a-f]{1,16}-[0-9a-f]+");
+
+    private final Path path;
+    private final char[] password;
+    private final long rotationMs;
+    private final long overlapMs;
+    private volatile Snapshot snapshot;
+    private volatile long lastMissReload;
+
+    @Autowired
+    public JwtKeyRing(@Value("${jwt.keys.path:data/jwt-keys.p12}") String path,
+                      @Value("${jwt.keys.password}") String password,
+                      @Value("${jwt.keys.rotation-ms:604800000}") long rotationMs,
+                      @Value("${jwt.keys.overlap-ms:86400000}") long overlapMs) {
+        if (password == null || password.isBlank()) {
+            throw new RuntimeException("Chưa cấu hình mật khẩu keystore JWT: đặt biến môi trường JWT_KEYS_PASSWORD");
+        }
+        this.path = Path.of(path).toAbsolutePath();
+        this.password = password.toCharArray();
+        this.rotationMs = rotationMs;
+        this.overlapMs = overlapMs;
+        refresh();
+    }
+
+    private JwtKeyRing(SigningKey key) {
+        this.path = null;
+        this.password = null;
+        this.rotationMs = Long.MAX_VALUE;
+        this.overlapMs = 0;
+        this.snapshot = new Snapshot(key, Map.of(key.kid(), key.key()));
+    }
+
+    /*
+    Bo khoa chi nam trong bo nho, 1 khoa ngau nhien (benchmark, test thuan)
+     */
+    public static JwtKeyRing inMemory() {
+        return new JwtKeyRing(newKey(System.currentTimeMillis()));
+    }
+
+    /*
+    Khoa dung de ky token moi
+     */
+    public SigningKey signingKey() {
+        return snapshot.active();
+    }
+
+    /*
+    Khoa verify theo kid, null neu khong co (kid gia / khoa da bi xoa)
+     */
+    public SecretKey find(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        SecretKey key = snapshot.byKid().get(kid);
+        if (key != null || path == null) {
+            return key;
+        }
+        long now = System.currentTimeMillis();
+        long last = lastMissReload;
+        if (now - last < MISS_RELOAD_INTERVAL_MS) {
+            return null;
+        }
+        lastMissReload = now;
+        reload();
+        return snapshot.byKid().get(kid);
+    }
+
+    /*
+    Dinh ky: doc file, xoay khoa neu den han, xoa khoa het thoi gian overlap
+     */
+    @Scheduled(initialDelayString = "${jwt.keys.check-interval-ms:60000}",
+            fixedDelayString = "${jwt.keys.check-interval-ms:60000}")
+    public synchronized void refresh() {
+        if (path == null) {
+            return;
+        }
+        synchronized (FILE_LOCK) {
+            try {
+                Files.createDirectories(path.getParent());
+                try (FileChannel channel = FileChannel.open(lockPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock ignored = channel.lock()) {
+                    KeyStore keyStore = load();
+                    if (rotate(keyStore, System.currentTimeMillis())) {
+                        store(keyStore);
+                    }
+                    snapshot = snapshotOf(keyStore);
+                }
+            } catch (IOException | GeneralSecurityException e) {
+                throw new RuntimeException("Không đọc / ghi được keystore JWT: " + path, e);
+            }
+        }
+    }
+
+    // Chi doc file (khong xoay khoa), dung khi gap kid la
+    private synchronized void reload() {
+        try {
+            snapshot = snapshotOf(load());
+        } catch (IOException | GeneralSecurityException e) {
+            log.warn("Không đọc lại được keystore JWT {}: {}", path, e.getMessage());
+        }
+    }
+
+    /*
+    Sinh khoa moi khi den han, xoa khoa da bi thay qua overlapMs
+    @return true neu keystore thay doi (can ghi lai file)
+     */
+    private boolean rotate(KeyStore keyStore, long now) throws GeneralSecurityException {
+        List<String> kids = sortedKids(keyStore);
+        boolean changed = false;
+        if (kids.isEmpty() || now - createdAt(kids.get(kids.size() - 1)) >= rotationMs) {
+            SigningKey key = newKey(now);
+            keyStore.setEntry(key.kid(), new KeyStore.SecretKeyEntry(key.key()), protection());
+            kids.add(key.kid());
+            changed = true;
+            log.info("Tạo khóa ký JWT mới kid={}", key.kid());
+        }
+        // khoa i bi thay boi khoa i+1 tu luc khoa i+1 duoc tao
+        for (int i = 0; i < kids.size() - 1; i++) {
+            if (now - createdAt(kids.get(i + 1)) > overlapMs) {
+                keyStore.deleteEntry(kids.get(i));
+                changed = true;
+                log.info("Xóa khóa ký JWT đã hết overlap kid={}", kids.get(i));
+            }
+        }
+        return changed;
+    }
+
+    private Snapshot snapshotOf(KeyStore keyStore) throws GeneralSecurityException {
+        List<String> kids = sortedKids(keyStore);
+        if (kids.isEmpty()) {
+            throw new GeneralSecurityException("Keystore JWT không có khóa nào");
+        }
+        Map<String, SecretKey> byKid = new HashMap<>();
+        for (String kid : kids) {
+            KeyStore.SecretKeyEntry entry = (KeyStore.SecretKeyEntry) keyStore.getEntry(kid, protection());
+            byKid.put(kid, entry.getSecretKey());
+        }
+        String newest = kids.get(kids.size() - 1);
+        return new Snapshot(new SigningKey(newest, byKid.get(newest), createdAt(newest)),
+                Collections.unmodifiableMap(byKid));
+    }
+
+    private KeyStore load() throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        if (!Files.exists(path)) {
+            keyStore.load(null, password);
+            return keyStore;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, password);
+        }
+        return keyStore;
+    }
+
+    private void store(KeyStore keyStore) throws IOException, GeneralSecurityException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            keyStore.store(out, password);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path lockPath() {
+        return path.resolveSibling(path.getFileName() + ".lock");
+    }
+
+    private KeyStore.PasswordProtection protection() {
+        return new KeyStore.PasswordProtection(password);
+    }
+
+    // Chi lay cac alias dung dinh dang kid, cu → moi
+    private static List<String> sortedKids(KeyStore keyStore) throws GeneralSecurityException {
+        List<String> kids = new ArrayList<>();
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (KID.matcher(alias).matches() && keyStore.entryInstanceOf(alias, KeyStore.SecretKeyEntry.class)) {
+                kids.add(alias);
+            }
+        }
+        kids.sort(Comparator.comparingLong(JwtKeyRing::createdAt));
+        return kids;
+    }
+
+    // kid = <thoi diem tao, hex>-<ngau nhien> → biet tuoi khoa ma khong can luu them gi
+    private static SigningKey newKey(long now) {
+        byte[] random = new byte[6];
+        RANDOM.nextBytes(random);
+        String kid = Long.toHexString(now) + "-" + HexFormat.of().formatHex(random);
+        return new SigningKey(kid, Jwts.SIG.HS256.key().build(), now);
+    }
+
+    private static long createdAt(String kid) {
+        return Long.parseLong(kid.substring(0, kid.indexOf('-')), 16);
+    }
+}
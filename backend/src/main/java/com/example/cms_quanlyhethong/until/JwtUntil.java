@@ -2,45 +2,89 @@ package com.example.cms_quanlyhethong.until;
 
 import com.example.cms_quanlyhethong.CmsQuanlyhethongApplication;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.ProtectedHeader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUntil {
-    // tao ra khoa bi mat de ma hoa token
-    private final Key SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    // bo khoa ky token (luu file, xoay dinh ky), token mang kid cua khoa da ky
+    private final JwtKeyRing keyRing;
+    // claim chua users.status_version
+    private static final String STATUS_VERSION_CLAIM = "sv";
     // tao ra thoi gian token co hieu luc
     private final long EXPIRATION_TIME = 1000 * 60 * 60 * 24;
+    // parser dung chung (thread-safe), khong tao lai moi lan parse
+    // lay khoa verify theo header kid
+    private final JwtParser jwtParser;
+    // token da verify → bo qua kiem tra chu ky lan sau
+    private final JwtClaimsCache jwtClaimsCache;
+    // timer theo ket qua verify: cached (trung cache) / verified (kiem chu ky) / invalid
+    // chua gan registry (benchmark, test thuan) → registry rong, timer khong ghi gi
+    private Timer cachedTimer;
+    private Timer verifiedTimer;
+    private Timer invalidTimer;
+
+    // khong co Spring (benchmark, test thuan): new JwtUntil(JwtKeyRing.inMemory(), new JwtClaimsCache(...))
+    @Autowired
+    public JwtUntil(JwtKeyRing keyRing, JwtClaimsCache jwtClaimsCache) {
+        this.keyRing = keyRing;
+        this.jwtClaimsCache = jwtClaimsCache;
+        this.jwtParser = Jwts.parser()
+                .keyLocator(header -> header instanceof ProtectedHeader protectedHeader
+                        ? keyRing.find(protectedHeader.getKeyId())
+                        : null)
+                .build();
+        bindMetrics(new CompositeMeterRegistry());
+    }
+
+    @Autowired(required = false)
+    public void bindMetrics(MeterRegistry registry) {
+        cachedTimer = verifyTimer(registry, "cached");
+        verifiedTimer = verifyTimer(registry, "verified");
+        invalidTimer = verifyTimer(registry, "invalid");
+    }
+    /*
+    tao JWT token tu UserName và Role (statusVersion = 0: user chua tung bi thu hoi token)
+     */
+    public String generateToken(String username , Set<String> roles) {
+        return generateToken(username, roles, 0);
+    }
     /*
     tao JWT token tu UserName và Role
     @param username - ten dang nhap
     @param role - danh sach role user
+    @param statusVersion - users.status_version luc dang nhap (claim sv)
     @retuen JWT token string
      */
-    public String generateToken(String username , Set<String> roles) {
+    public String generateToken(String username , Set<String> roles, int statusVersion) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("roles", roles); // them roles vao token
+        claims.put(STATUS_VERSION_CLAIM, statusVersion); // token bi thu hoi khi version cua user tang
+        JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
         return Jwts.builder()
+                .header().keyId(signingKey.kid()).and() // kid → verify tim dung khoa
                 .setClaims(claims) // them thong tin roles
                 .setSubject(username) // them user
                 .setIssuedAt(new Date()) // thoi gian tao token
                 .setExpiration(new Date(System.currentTimeMillis()+EXPIRATION_TIME)) // thoi gian token het hieu luc
-                .signWith(SECRET_KEY) // ky token bang khoa bi mat
+                .signWith(signingKey.key()) // ky token bang khoa hien tai
         .compact();
     }
     /*
     Lay user name tu token
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(SECRET_KEY)
-                .build()
+        Claims claims = jwtParser
                 .parseClaimsJws(token)
                 .getBody();
         return claims.getSubject();
@@ -49,27 +93,17 @@ public class JwtUntil {
     Lay role tu token
      */
     public Set<String> getRoleFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(SECRET_KEY)
-                .build()
+        Claims claims = jwtParser
                 .parseClaimsJws(token)
                 .getBody();
-        List<String> roles = claims.get("roles", List.class);
-        if (roles == null) {
-            return new java.util.HashSet<>();
-            // kiem tra de tranh loi tra ve null
-        }
-        return new HashSet<>(roles);
+        return rolesOf(claims);
     }
     /*
     Kiem tra token co hop le hay khong
      */
     public boolean validateToken(String token) {
         try{
-            Jwts.parser()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token);
+            jwtParser.parseClaimsJws(token);
             return true;
         }
         catch(Exception e){
@@ -80,13 +114,71 @@ public class JwtUntil {
     Kiem tra token co het han hay chua
      */
     public boolean isTokenExpired(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(SECRET_KEY)
-                .build()
+        Claims claims = jwtParser
                 .parseClaimsJws(token)
                 .getBody();
 
         return claims.getExpiration().before(new Date());
     }
+    /*
+    Parse token 1 lan duy nhat: kiem tra chu ky + han su dung,
+    tra ve username, roles va thoi diem het han
+    @throws JwtException neu token sai chu ky / het han / sai dinh dang
+     */
+    public VerifiedToken parseToken(String token) {
+        Claims claims = jwtParser
+                .parseClaimsJws(token)
+                .getBody();
+        return new VerifiedToken(
+                claims.getSubject(),
+                Collections.unmodifiableSet(rolesOf(claims)),
+                claims.getExpiration().getTime(),
+                statusVersionOf(claims)
+        );
+    }
+    /*
+    Kiem tra token co dung cache: token da verify roi thi bo qua buoc kiem tra chu ky
+    @return VerifiedToken, hoac null neu token khong hop le
+     */
+    public VerifiedToken verifyToken(String token) {
+        long start = System.nanoTime();
+        VerifiedToken cached = jwtClaimsCache.get(token);
+        if (cached != null) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+        try {
+            VerifiedToken verified = parseToken(token);
+            jwtClaimsCache.put(token, verified);
+            verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return verified;
+        } catch (Exception e) {
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
+        }
+    }
+
+    private static Timer verifyTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("jwt.verify")
+                .description("Thời gian kiểm tra JWT trong JwtUntil.verifyToken")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // Token khong co sv (cap truoc khi co claim nay) → -1, khong bao gio khop
+    private int statusVersionOf(Claims claims) {
+        Integer version = claims.get(STATUS_VERSION_CLAIM, Integer.class);
+        return version != null ? version : -1;
+    }
+
+    private Set<String> rolesOf(Claims claims) {
+        List<String> roles = claims.get("roles", List.class);
+        if (roles == null) {
+            return new java.util.HashSet<>();
+            // kiem tra de tranh loi tra ve null
+        }
+        return new HashSet<>(roles);
+    }
 
 }
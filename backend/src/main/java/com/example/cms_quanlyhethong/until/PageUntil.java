@@ -0,0 +1,75 @@
+package com.example.cms_quanlyhethong.until;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/*
+    Ham dung chung cho phan trang:
+    - tao Pageable tu page/size/sort (chi cho sort theo cac field cho phep)
+    - ma hoa / giai ma cursor (id cuoi cung cua trang truoc)
+ */
+public final class PageUntil {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private PageUntil() {
+    }
+
+    // gioi han size trong khoang [1, MAX_SIZE]
+    public static int clampSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /*
+    Tao Pageable tu tham so request
+    @param sort - dang "field,asc" hoac "field,desc"; field phai nam trong allowedFields
+     */
+    public static Pageable toPageable(Integer page, Integer size, String sort, Set<String> allowedFields) {
+        int pageNumber = page != null && page > 0 ? page : 0;
+        return PageRequest.of(pageNumber, clampSize(size), toSort(sort, allowedFields));
+    }
+
+    private static Sort toSort(String sort, Set<String> allowedFields) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.by("id");
+        }
+        String[] parts = sort.split(",");
+        String field = parts[0].trim();
+        if (!allowedFields.contains(field)) {
+            throw new RuntimeException("Không thể sắp xếp theo field: " + field);
+        }
+        Sort.Direction direction = parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc")
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
+        // them id de thu tu on dinh khi field trung gia tri
+        return Sort.by(direction, field).and(Sort.by("id"));
+    }
+
+    // Ma hoa id cuoi cung thanh cursor (base64url, client khong can biet ben trong)
+    public static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Giai ma cursor, cursor rong = bat dau tu dau
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.parseLong(raw);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Cursor không hợp lệ: " + cursor);
+        }
+    }
+}
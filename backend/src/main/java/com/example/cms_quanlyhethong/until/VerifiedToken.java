@@ -0,0 +1,24 @@
+package com.example.cms_quanlyhethong.until;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/*
+    Ket qua cua 1 lan parse + kiem tra chu ky JWT
+    Chua du thong tin filter can: username, roles, thoi diem het han,
+    statusVersion (claim sv, so voi UserStatusRegistry de biet token da bi thu hoi chua)
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+    private final String username;
+    private final Set<String> roles;
+    private final long expiresAtMillis; // thoi diem het han (epoch millis)
+    private final int statusVersion;
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.cms_quanlyhethong.benchmark;
+
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.repository.RoleRepository;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Load benchmark: login burst (BCrypt) chay song song voi request doc nhe (GET /api/roles)
+    - Moi subclass bat/tat spring.threads.virtual.enabled
+    - Ghi throughput + p50/p99 cua tung nhom ra target/benchmarks/login-load-<mode>.json
+    - Chay bang: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// Do BCrypt duoi tai → nang gioi han LoginThrottle (moi client cung 1 IP, 1 username)
+@TestPropertySource(properties = {
+        "security.login.throttle.username.capacity=1000000000",
+        "security.login.throttle.username.refill-per-minute=1000000000",
+        "security.login.throttle.ip.capacity=1000000000",
+        "security.login.throttle.ip.refill-per-minute=1000000000",
+        // do voi cost that (hieu chinh theo may), khong dung cost 4 cua test
+        "security.password.bcrypt.cost=0",
+        // do nang luc that cua server, khong cat tai 503
+        "http.concurrency.enabled=false"
+})
+abstract class AbstractLoginLoadBenchmark {
+
+    private static final String USERNAME = "bench_admin";
+    private static final String PASSWORD = "bench_password";
+
+    private static final int LOGIN_CLIENTS = Integer.getInteger("bench.login-clients", 64);
+    private static final int READ_CLIENTS = Integer.getInteger("bench.read-clients", 16);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("bench.warmup-seconds", 3));
+    private static final Duration MEASURE = Duration.ofSeconds(Long.getLong("bench.measure-seconds", 10));
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    // Ten che do, dung lam ten file ket qua
+    protected abstract String mode();
+
+    @BeforeEach
+    void seed() {
+        if (userRepository.existsByUsername(USERNAME)) {
+            return;
+        }
+        Role admin = roleRepository.findByName("ROLE_ADMIN").orElseGet(() -> {
+            Role role = new Role();
+            role.setName("ROLE_ADMIN");
+            return roleRepository.save(role);
+        });
+        User user = new User();
+        user.setUsername(USERNAME);
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        user.setEmail("bench_admin@example.com");
+        user.setFullname("Benchmark Admin");
+        user.setRoles(Set.of(admin));
+        userRepository.save(user);
+    }
+
+    @Test
+    void loginBurstAlongsideReads() throws Exception {
+        String token = extractToken(send(loginRequest()).body());
+
+        run(token, WARMUP);
+        Result result = run(token, MEASURE);
+
+        Path out = Path.of("target", "benchmarks", "login-load-" + mode() + ".json");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, result.toJson(mode()));
+        System.out.println("[benchmark] " + result.toJson(mode()));
+
+        assertTrue(result.reads.count() > 0, "Khong co request doc nao thanh cong");
+    }
+
+    private Result run(String token, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        HttpRequest login = loginRequest();
+        HttpRequest read = HttpRequest.newBuilder(uri("/api/roles"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Samples>> logins = new ArrayList<>();
+            List<Future<Samples>> reads = new ArrayList<>();
+            for (int i = 0; i < LOGIN_CLIENTS; i++) {
+                logins.add(clients.submit(() -> loop(login, deadline)));
+            }
+            for (int i = 0; i < READ_CLIENTS; i++) {
+                reads.add(clients.submit(() -> loop(read, deadline)));
+            }
+            return new Result(Samples.merge(logins), Samples.merge(reads), duration);
+        }
+    }
+
+    // 1 client: gui request lien tuc cho den deadline, ghi lai latency
+    private Samples loop(HttpRequest request, long deadline) {
+        Samples samples = new Samples();
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = send(request);
+                if (response.statusCode() == 200) {
+                    samples.add(System.nanoTime() - start);
+                } else {
+                    samples.errors++;
+                }
+            } catch (IOException e) {
+                samples.errors++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return samples;
+    }
+
+    private HttpRequest loginRequest() {
+        String body = "{\"username\":\"" + USERNAME + "\",\"password\":\"" + PASSWORD + "\"}";
+        return HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String extractToken(String loginBody) {
+        int start = loginBody.indexOf("\"token\":\"") + 9;
+        return loginBody.substring(start, loginBody.indexOf('"', start));
+    }
+
+    // ========== KET QUA ==========
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long value) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+        }
+
+        long count() {
+            return size;
+        }
+
+        static Samples merge(List<Future<Samples>> futures) throws Exception {
+            Samples all = new Samples();
+            for (Future<Samples> future : futures) {
+                Samples s = future.get();
+                for (int i = 0; i < s.size; i++) {
+                    all.add(s.nanos[i]);
+                }
+                all.errors += s.errors;
+            }
+            Arrays.sort(all.nanos, 0, all.size);
+            return all;
+        }
+
+        double percentileMillis(double p) {
+            if (size == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * size) - 1;
+            return nanos[Math.max(0, Math.min(index, size - 1))] / 1_000_000.0;
+        }
+
+        String toJson(Duration duration) {
+            return String.format(Locale.ROOT,
+                    "{\"requests\":%d,\"errors\":%d,\"throughputPerSec\":%.1f,\"p50Ms\":%.2f,\"p99Ms\":%.2f}",
+                    size, errors, size / (double) duration.toSeconds(),
+                    percentileMillis(0.50), percentileMillis(0.99));
+        }
+    }
+
+    private record Result(Samples logins, Samples reads, Duration duration) {
+        String toJson(String mode) {
+            return String.format(Locale.ROOT,
+                    "{\"mode\":\"%s\",\"cores\":%d,\"loginClients\":%d,\"readClients\":%d,\"seconds\":%d,"
+                            + "\"login\":%s,\"read\":%s}",
+                    mode, Runtime.getRuntime().availableProcessors(), LOGIN_CLIENTS, READ_CLIENTS,
+                    duration.toSeconds(), logins.toJson(duration), reads.toJson(duration));
+        }
+    }
+}
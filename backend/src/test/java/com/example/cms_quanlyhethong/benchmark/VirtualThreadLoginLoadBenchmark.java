@@ -0,0 +1,15 @@
+package com.example.cms_quanlyhethong.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:bench_virtual;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+class VirtualThreadLoginLoadBenchmark extends AbstractLoginLoadBenchmark {
+
+    @Override
+    protected String mode() {
+        return "virtual";
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.cms_quanlyhethong.benchmark.jmh;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Ghi nhieu dong 1 transaction: IDENTITY (truoc) vs pooled sequence + JDBC batch (sau)
+    - IDENTITY: Hibernate phai INSERT tung dong de lay id → khong batch duoc
+    - pooled: id co san trong bo nho, INSERT gom theo hibernate.jdbc.batch_size
+    Hibernate + H2 in-memory tu dung (khong Spring), mapping o benchmark/insert-orm.xml
+    AuxCounters: rows = so dong/giay, statements = so lan goi JDBC/giay
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityInsertBenchmark {
+
+    private static final int ROWS_PER_TRANSACTION = 200;
+
+    @Param({"identity", "pooled"})
+    public String idStrategy;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+    private int sequence;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long rows;
+        public long statements;
+    }
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("jakarta.persistence.jdbc.url", "jdbc:h2:mem:bench_insert_" + idStrategy + ";DB_CLOSE_DELAY=-1");
+        settings.put("jakarta.persistence.jdbc.user", "sa");
+        settings.put("hibernate.hbm2ddl.auto", "create-drop");
+        settings.put("hibernate.jdbc.batch_size", "50");
+        settings.put("hibernate.order_inserts", "true");
+        settings.put("hibernate.generate_statistics", "true");
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder().applySettings(settings).build();
+        sessionFactory = new MetadataSources(registry)
+                .addResource("benchmark/insert-orm.xml")
+                .buildMetadata()
+                .buildSessionFactory();
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("delete from EntityInsertBenchmark$IdentityRow").executeUpdate();
+            session.createMutationQuery("delete from EntityInsertBenchmark$PooledRow").executeUpdate();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void insertRows(Counters counters) {
+        long before = statistics.getPrepareStatementCount();
+        boolean identity = "identity".equals(idStrategy);
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                int n = sequence++;
+                session.persist(identity ? new IdentityRow(n) : new PooledRow(n));
+            }
+        });
+        counters.rows += ROWS_PER_TRANSACTION;
+        counters.statements += statistics.getPrepareStatementCount() - before;
+    }
+
+    // ========== ENTITY (mapping bang XML) ==========
+    public static class IdentityRow {
+        private Long id;
+        private String username;
+        private String email;
+        private String fullname;
+
+        protected IdentityRow() {
+        }
+
+        IdentityRow(int n) {
+            this.username = "user" + n;
+            this.email = "user" + n + "@example.com";
+            this.fullname = "User " + n;
+        }
+    }
+
+    public static class PooledRow {
+        private Long id;
+        private String username;
+        private String email;
+        private String fullname;
+
+        protected PooledRow() {
+        }
+
+        PooledRow(int n) {
+            this.username = "user" + n;
+            this.email = "user" + n + "@example.com";
+            this.fullname = "User " + n;
+        }
+    }
+}
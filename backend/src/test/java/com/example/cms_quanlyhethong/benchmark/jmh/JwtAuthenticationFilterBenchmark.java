@@ -0,0 +1,70 @@
+package com.example.cms_quanlyhethong.benchmark.jmh;
+
+import com.example.cms_quanlyhethong.config.JwtAuthenticationFilter;
+import com.example.cms_quanlyhethong.dto.response.user.UserStatus;
+import com.example.cms_quanlyhethong.service.UserStatusRegistry;
+import com.example.cms_quanlyhethong.until.JwtClaimsCache;
+import com.example.cms_quanlyhethong.until.JwtUntil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+    JwtAuthenticationFilter.doFilter tu dau den cuoi voi mock servlet
+    - cached: token da co trong JwtClaimsCache (truong hop thuong gap)
+    - uncached: cache tat (max-size = 0), moi request deu kiem tra chu ky
+    - anonymous: khong co header Authorization
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"cached", "uncached", "anonymous"})
+    public String scenario;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        int cacheSize = "uncached".equals(scenario) ? 0 : 10_000;
+        JwtUntil jwtUntil = JwtBenchmark.jwtUntil(new JwtClaimsCache(cacheSize));
+        // registry da nap san user admin (version 0) → kiem tra thu hoi la 1 lan get, khong DB
+        UserStatusRegistry userStatusRegistry = new UserStatusRegistry(null, 30_000);
+        userStatusRegistry.update(new UserStatus(1L, "admin", 0, true));
+        filter = new JwtAuthenticationFilter(jwtUntil, userStatusRegistry);
+
+        request = new MockHttpServletRequest("GET", "/api/students");
+        request.setRemoteAddr("127.0.0.1");
+        if (!"anonymous".equals(scenario)) {
+            String token = jwtUntil.generateToken("admin", Set.of("ROLE_ADMIN", "ROLE_TEACHER"));
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Benchmark
+    public void doFilter() throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, chain);
+        } finally {
+            // giong cuoi moi request that: xoa SecurityContext cua thread
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
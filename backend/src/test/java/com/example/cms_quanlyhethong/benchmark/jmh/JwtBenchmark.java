@@ -0,0 +1,65 @@
+package com.example.cms_quanlyhethong.benchmark.jmh;
+
+import com.example.cms_quanlyhethong.until.JwtClaimsCache;
+import com.example.cms_quanlyhethong.until.JwtKeyRing;
+import com.example.cms_quanlyhethong.until.JwtUntil;
+import com.example.cms_quanlyhethong.until.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Tao + parse JWT
+    - parseToken: luon kiem tra chu ky (cache miss)
+    - verifyToken: token da nam trong JwtClaimsCache (cache hit)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final Set<String> ROLES = Set.of("ROLE_ADMIN", "ROLE_TEACHER");
+
+    private JwtUntil jwtUntil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUntil = jwtUntil(new JwtClaimsCache(10_000));
+        token = jwtUntil.generateToken("admin", ROLES);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUntil.generateToken("admin", ROLES);
+    }
+
+    @Benchmark
+    public VerifiedToken parseToken() {
+        return jwtUntil.parseToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return jwtUntil.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public Set<String> getRoleFromToken() {
+        return jwtUntil.getRoleFromToken(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyTokenCached() {
+        return jwtUntil.verifyToken(token);
+    }
+
+    // Khong co Spring: bo khoa tam trong bo nho + cache do benchmark chon
+    static JwtUntil jwtUntil(JwtClaimsCache cache) {
+        return new JwtUntil(JwtKeyRing.inMemory(), cache);
+    }
+}
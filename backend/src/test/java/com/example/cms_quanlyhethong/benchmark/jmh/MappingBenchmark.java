@@ -0,0 +1,98 @@
+package com.example.cms_quanlyhethong.benchmark.jmh;
+
+import com.example.cms_quanlyhethong.dto.response.student.StudentResponse;
+import com.example.cms_quanlyhethong.dto.response.user.UserResponse;
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.entity.Student;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.mapper.UserMapper;
+import com.example.cms_quanlyhethong.service.StudentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Entity -> DTO: UserMapper.toResponse va StudentService.convertToResponse
+    convertToResponse la private nen goi qua MethodHandle (static final, JIT inline duoc)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private static final MethodHandle CONVERT_STUDENT = convertStudentHandle();
+
+    private final UserMapper userMapper = new UserMapper();
+    private final StudentService studentService = new StudentService();
+    private User user;
+    private Student student;
+
+    @Setup
+    public void setUp() {
+        student = new Student();
+        student.setId(1L);
+        student.setStudentCode("SV001");
+        student.setFullName("Nguyễn Văn A");
+        student.setDateOfBirth(new Date());
+        student.setEmail("sv001@example.com");
+        student.setPhone("0900000001");
+        student.setAddress("Hà Nội");
+        student.setMajor("CNTT");
+        student.setClassName("K65");
+        student.setCreatedAt(new Date());
+        student.setUpdatedAt(new Date());
+
+        Set<Role> roles = new HashSet<>();
+        roles.add(role(1L, "ROLE_ADMIN"));
+        roles.add(role(2L, "ROLE_TEACHER"));
+        roles.add(role(3L, "ROLE_STUDENT"));
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("sv001");
+        user.setEmail("sv001@example.com");
+        user.setFullname("Nguyễn Văn A");
+        user.setIsActive(true);
+        user.setCreatedAt(new Date());
+        user.setUpdatedAt(new Date());
+        user.setRoles(roles);
+        user.setStudent(student);
+    }
+
+    @Benchmark
+    public UserResponse userToResponse() {
+        return userMapper.toResponse(user);
+    }
+
+    @Benchmark
+    public StudentResponse studentToResponse() throws Throwable {
+        return (StudentResponse) CONVERT_STUDENT.invokeExact(studentService, student);
+    }
+
+    private static Role role(Long id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(name);
+        role.setDescription(name);
+        return role;
+    }
+
+    private static MethodHandle convertStudentHandle() {
+        try {
+            return MethodHandles.privateLookupIn(StudentService.class, MethodHandles.lookup())
+                    .findVirtual(StudentService.class, "convertToResponse",
+                            MethodType.methodType(StudentResponse.class, Student.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
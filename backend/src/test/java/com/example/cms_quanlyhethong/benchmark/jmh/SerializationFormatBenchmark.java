@@ -0,0 +1,94 @@
+package com.example.cms_quanlyhethong.benchmark.jmh;
+
+import com.example.cms_quanlyhethong.dto.response.user.UserResponse;
+import com.example.cms_quanlyhethong.mapper.UserMapper;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Ghi danh sach user: JSON / Smile / CBOR x role lap lai (inline) / tu dien role (dictionary)
+    - Thoi gian: avgt (us / lan ghi ca danh sach)
+    - Kich thuoc payload: in ra khi ket thuc moi to hop tham so ("payload json/inline, 500 users: ... bytes")
+    dictionary tinh ca thoi gian doi sang CompactUserListResponse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    @Param({"inline", "dictionary"})
+    public String shape;
+
+    @Param({"500"})
+    public int users;
+
+    private final UserMapper userMapper = new UserMapper();
+    private ObjectMapper mapper;
+    private List<UserResponse> list;
+
+    @Setup
+    public void setUp() {
+        mapper = switch (format) {
+            case "smile" -> new SmileMapper();
+            case "cbor" -> new CBORMapper();
+            default -> new JsonMapper();
+        };
+        list = users(users);
+    }
+
+    @Benchmark
+    public byte[] writeUsers() {
+        Object body = shape.equals("dictionary") ? userMapper.toCompactList(list) : list;
+        return mapper.writeValueAsBytes(body);
+    }
+
+    // Kich thuoc payload khong doi giua cac lan ghi → in 1 lan moi to hop tham so
+    @TearDown
+    public void printPayloadSize() {
+        byte[] bytes = writeUsers();
+        System.out.printf("payload %s/%s, %d users: %d bytes%n", format, shape, users, bytes.length);
+    }
+
+    // 3 role, moi user 1-2 role; 80% user co ho so sinh vien
+    static List<UserResponse> users(int count) {
+        UserResponse.RoleResponse admin = new UserResponse.RoleResponse(1L, "ROLE_ADMIN", "Quản trị hệ thống");
+        UserResponse.RoleResponse teacher = new UserResponse.RoleResponse(2L, "ROLE_TEACHER", "Giảng viên");
+        UserResponse.RoleResponse student = new UserResponse.RoleResponse(3L, "ROLE_STUDENT", "Sinh viên");
+        Date now = new Date();
+        List<UserResponse> result = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            boolean isStudent = i % 5 != 0;
+            UserResponse user = UserResponse.builder()
+                    .id((long) i)
+                    .username("user" + i)
+                    .email("user" + i + "@example.com")
+                    .fullname("Nguyễn Văn " + i)
+                    .isActive(true)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .roles(isStudent ? Set.of(student) : Set.of(teacher, admin))
+                    .student(isStudent
+                            ? new UserResponse.StudentBasicInfo((long) i, String.format("SV%06d", i),
+                            "Nguyễn Văn " + i, "user" + i + "@example.com")
+                            : null)
+                    .build();
+            result.add(user);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.cms_quanlyhethong.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Gioi han dong thoi AIMD + filter cat tai: dat gioi han → 503 ngay, tung nhom dem rieng
+ */
+class ConcurrencyLimitFilterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void rejectsAtLimitUntilReleased() {
+        AdaptiveConcurrencyLimit limit = limit(2, 1, 10);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        limit.release(10 * MS);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void slowRequestsShrinkLimitOncePerWindowDownToMin() {
+        AdaptiveConcurrencyLimit limit = limit(20, 4, 100);
+
+        // ca dot cham trong cung 1 cua so → chi giam 1 lan
+        for (int i = 0; i < 5; i++) {
+            limit.tryAcquire();
+            limit.release(500 * MS);
+        }
+        assertEquals(18, limit.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            clock.addAndGet(100 * MS);
+            limit.tryAcquire();
+            limit.release(500 * MS);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void fastRequestsGrowLimitOnlyWhenUtilized() {
+        AdaptiveConcurrencyLimit limit = limit(4, 1, 6);
+
+        // 1 request / luc (< 1/2 gioi han) → khong tang
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.release(MS);
+        }
+        assertEquals(4, limit.getLimit());
+
+        for (int round = 0; round < 100; round++) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limit.release(MS);
+            }
+        }
+        assertEquals(6, limit.getLimit());
+    }
+
+    @Test
+    void filterShedsWith503WhenGroupIsFullButOtherGroupsPass() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(meterRegistry, true,
+                limit("auth", 1, 1, 1), limit("read", 1, 1, 1), limit("write", 1, 1, 1),
+                AdaptiveConcurrencyLimit.fixed("bulk", 1, 100));
+        AtomicInteger nestedStatus = new AtomicInteger();
+        AtomicInteger otherGroupStatus = new AtomicInteger();
+
+        // Trong luc 1 GET dang xu ly: GET thu 2 bi 503, POST (nhom WRITE) van qua
+        MockFilterChain busyChain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                try {
+                    MockHttpServletResponse nested = new MockHttpServletResponse();
+                    filter.doFilter(new MockHttpServletRequest("GET", "/api/students"), nested, new MockFilterChain());
+                    nestedStatus.set(nested.getStatus());
+                    assertEquals("1", nested.getHeader("Retry-After"));
+
+                    MockHttpServletResponse other = new MockHttpServletResponse();
+                    filter.doFilter(new MockHttpServletRequest("POST", "/api/students"), other, new MockFilterChain());
+                    otherGroupStatus.set(other.getStatus());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users"), response, busyChain);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(503, nestedStatus.get());
+        assertEquals(200, otherGroupStatus.get());
+        assertEquals(1.0, meterRegistry.get("http.server.requests.shed").tag("group", "read").counter().count());
+    }
+
+    @Test
+    void longExportDoesNotShrinkLimitOfShortReads() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new SimpleMeterRegistry(), true,
+                limit("auth", 4, 1, 4), limit("read", 20, 4, 100), limit("write", 10, 2, 100),
+                AdaptiveConcurrencyLimit.fixed("bulk", 1, 100));
+        AtomicInteger shortStatus = new AtomicInteger();
+        AtomicInteger secondExportStatus = new AtomicInteger();
+
+        // Export chay lau hon target-latency (100ms); trong luc do cac GET ngan van chay binh thuong
+        MockFilterChain slowExport = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                try {
+                    for (int i = 0; i < 5; i++) {
+                        MockHttpServletResponse quick = new MockHttpServletResponse();
+                        filter.doFilter(new MockHttpServletRequest("GET", "/api/students"), quick, new MockFilterChain());
+                        shortStatus.set(quick.getStatus());
+                    }
+                    MockHttpServletResponse second = new MockHttpServletResponse();
+                    filter.doFilter(new MockHttpServletRequest("GET", "/api/users/export"), second, new MockFilterChain());
+                    secondExportStatus.set(second.getStatus());
+                    Thread.sleep(150);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/students/export"), response, slowExport);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(200, shortStatus.get());
+        // nhom BULK gioi han co dinh 1 → export thu 2 bi cat, gioi han khong doi
+        assertEquals(503, secondExportStatus.get());
+        assertEquals(1, filter.limitOf(ConcurrencyLimitFilter.Group.BULK).getLimit());
+        assertEquals(20, filter.limitOf(ConcurrencyLimitFilter.Group.READ).getLimit());
+    }
+
+    @Test
+    void groupsByPathAndMethod() {
+        assertEquals(ConcurrencyLimitFilter.Group.AUTH,
+                ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("POST", "/api/auth/login")));
+        assertEquals(ConcurrencyLimitFilter.Group.READ,
+                ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("GET", "/api/users")));
+        assertEquals(ConcurrencyLimitFilter.Group.WRITE,
+                ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("DELETE", "/api/users/1")));
+        assertEquals(ConcurrencyLimitFilter.Group.BULK,
+                ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("GET", "/api/users/export")));
+        assertEquals(ConcurrencyLimitFilter.Group.BULK,
+                ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("POST", "/api/students/import")));
+        assertEquals(ConcurrencyLimitFilter.Group.BULK,
+                ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("POST", "/api/users/roles/bulk")));
+    }
+
+    private AdaptiveConcurrencyLimit limit(int initial, int min, int max) {
+        return limit("read", initial, min, max);
+    }
+
+    private AdaptiveConcurrencyLimit limit(String name, int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimit(name, initial, min, max, 100, 0.9, clock::get);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.cms_quanlyhethong.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Pool BCrypt day → BusyException (controller map sang 503 + Retry-After), khong phai RuntimeException chung
+ */
+class OffloadingPasswordEncoderTest {
+
+    @Test
+    void fullPoolThrowsBusyWithRetryAfter() {
+        Executor full = task -> {
+            throw new RejectedExecutionException("queue full");
+        };
+        OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(new BCryptPasswordEncoder(4), 4, full,
+                new SimpleMeterRegistry());
+
+        assertEquals(1, assertThrows(OffloadingPasswordEncoder.BusyException.class,
+                () -> encoder.matches("secret", "$2a$04$abcdefghijklmnopqrstuu")).getRetryAfterSeconds());
+        assertThrows(OffloadingPasswordEncoder.BusyException.class, () -> encoder.encode("secret"));
+        assertThrows(OffloadingPasswordEncoder.BusyException.class, () -> encoder.encodeAsync("secret"));
+    }
+
+    @Test
+    void errorsOfTheDelegateAreNotReportedAsBusy() {
+        OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(new BCryptPasswordEncoder(4), 4,
+                Runnable::run, new SimpleMeterRegistry());
+
+        // BCrypt tu choi mat khau > 72 byte → loi goc duoc nem lai nguyen ven
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> encoder.encode("x".repeat(100)));
+        assertTrue(e.getMessage().contains("72"));
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.cms_quanlyhethong.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+    Routing doc / ghi tren cac DB H2 in-memory rieng (primary, replica): moi DB 1 dong ghi ten cua no
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final AtomicLong clock = new AtomicLong(System.nanoTime());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<AutoCloseable> opened = new ArrayList<>();
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        SecurityContextHolder.clearContext();
+        for (AutoCloseable closeable : opened) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaOthersToPrimary() {
+        routing(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN, database("primary"), database("replica"));
+
+        assertEquals("replica", read(true));
+        assertEquals("primary", read(false));
+        // ngoai transaction (auto-commit) → primary
+        assertEquals("primary", jdbc.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @Test
+    void writerReadsFromPrimaryForStickyWindow() throws Exception {
+        routing(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN, database("primary"), database("replica"));
+        login("alice");
+        write();
+
+        assertEquals("primary", read(true));
+        // thread khac: alice van sticky, bob thi khong
+        assertEquals("primary", CompletableFuture.supplyAsync(() -> as("alice")).get());
+        assertEquals("replica", CompletableFuture.supplyAsync(() -> as("bob")).get());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+        assertEquals("replica", read(true));
+        assertEquals("replica", CompletableFuture.supplyAsync(() -> as("alice")).get());
+    }
+
+    @Test
+    void roundRobinAlternatesBetweenReplicas() {
+        routing(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN,
+                database("primary"), database("replica-a"), database("replica-b"));
+
+        assertEquals("replica-a", read(true));
+        assertEquals("replica-b", read(true));
+        assertEquals("replica-a", read(true));
+    }
+
+    @Test
+    void deadReplicaIsSkipped() {
+        routing(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN,
+                database("primary"), deadReplica(), database("replica-b"));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica-b", read(true));
+        }
+        assertEquals(4.0, meterRegistry.get("datasource.reads").tag("target", "replica-b").counter().count());
+        assertEquals(0.0, meterRegistry.get("datasource.reads").tag("target", "primary-fallback").counter().count());
+    }
+
+    @Test
+    void allReplicasDownFallsBackToPrimary() {
+        routing(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN, database("primary"), deadReplica());
+
+        assertEquals("primary", read(true));
+        assertEquals("primary", read(true));
+        assertEquals(2.0, meterRegistry.get("datasource.reads").tag("target", "primary-fallback").counter().count());
+    }
+
+    @Test
+    void leastConnectionsPicksIdleReplica() throws Exception {
+        HikariDataSource busy = database("replica-a");
+        routing(ReplicaRoutingDataSource.Strategy.LEAST_CONNECTIONS, database("primary"), busy, database("replica-b"));
+
+        try (Connection ignored = busy.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals("replica-b", read(true));
+            }
+        }
+    }
+
+    private void routing(ReplicaRoutingDataSource.Strategy strategy, HikariDataSource primary,
+                         HikariDataSource... replicas) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replicas), strategy,
+                1000, 60_000, meterRegistry, clock::get);
+        opened.add(routing);
+        jdbc = new JdbcTemplate(routing);
+        transactionManager = new DataSourceTransactionManager(routing);
+    }
+
+    private String read(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbc.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private void write() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jdbc.update("UPDATE node SET name = name"));
+    }
+
+    private String as(String username) {
+        login(username);
+        try {
+            return read(true);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static void login(String username) {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                username, null, AuthorityUtils.NO_AUTHORITIES));
+    }
+
+    // 1 DB H2 in-memory rieng, bang node chua ten DB
+    private HikariDataSource database(String name) {
+        // pool giu connection mo → DB con song cho toi khi pool dong
+        HikariDataSource dataSource = pool(name, "jdbc:h2:mem:routing_" + name.replace('-', '_') + "_" + System.nanoTime());
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE node (name VARCHAR(20))");
+        template.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    // Khong co server nao nghe → lay connection loi ngay
+    private HikariDataSource deadReplica() {
+        HikariDataSource dataSource = pool("replica-dead", "jdbc:h2:tcp://127.0.0.1:1/nothing");
+        dataSource.setConnectionTimeout(250);
+        return dataSource;
+    }
+
+    private HikariDataSource pool(String name, String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setMaximumPoolSize(2);
+        opened.add(dataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.cms_quanlyhethong.controller;
+
+import com.example.cms_quanlyhethong.config.CompactUserListAdvice;
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.repository.RoleRepository;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import com.example.cms_quanlyhethong.until.JwtUntil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Accept Smile / CBOR → danh sach user dang gon (tu dien role + roleIds)
+    Accept JSON → giu nguyen dang cu
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class BinaryFormatNegotiationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUntil jwtUntil;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private String bearer;
+
+    @BeforeEach
+    void setUp() {
+        bearer = "Bearer " + jwtUntil.generateToken("binary_admin", Set.of("ROLE_ADMIN"));
+        if (userRepository.existsByUsername("binary_u1")) {
+            return;
+        }
+        // filter chi nhan token cua user ton tai va dang active
+        userRepository.save(user("binary_admin", null));
+        Role role = roleRepository.save(new Role(null, "ROLE_BINARY", "Role dùng cho test", null, new HashSet<>()));
+        userRepository.save(user("binary_u1", role));
+        userRepository.save(user("binary_u2", role));
+    }
+
+    @Test
+    void smileListUsesSharedRoleDictionary() throws Exception {
+        assertCompact(CompactUserListAdvice.SMILE, new SmileMapper());
+    }
+
+    @Test
+    void cborListUsesSharedRoleDictionary() throws Exception {
+        assertCompact(MediaType.APPLICATION_CBOR, new CBORMapper());
+    }
+
+    @Test
+    void jsonKeepsInlineRoles() throws Exception {
+        mockMvc.perform(get("/api/users/role/ROLE_BINARY").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].roles[0].name").value("ROLE_BINARY"));
+    }
+
+    private void assertCompact(MediaType mediaType, ObjectMapper mapper) throws Exception {
+        byte[] body = mockMvc.perform(get("/api/users/role/ROLE_BINARY").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode root = mapper.readTree(body);
+        assertEquals(1, root.get("roles").size());
+        JsonNode role = root.get("roles").properties().iterator().next().getValue();
+        assertEquals("ROLE_BINARY", role.get("name").asString());
+        assertEquals(2, root.get("content").size());
+        for (JsonNode user : root.get("content")) {
+            assertEquals(role.get("id").asLong(), user.get("roleIds").get(0).asLong());
+            assertTrue(user.get("roles") == null);
+        }
+    }
+
+    private static User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}" + username);
+        user.setEmail(username + "@example.com");
+        user.setFullname(username);
+        if (role != null) {
+            user.setRoles(Set.of(role));
+        }
+        return user;
+    }
+}
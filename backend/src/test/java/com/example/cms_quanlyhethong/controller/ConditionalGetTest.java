@@ -0,0 +1,100 @@
+package com.example.cms_quanlyhethong.controller;
+
+import com.example.cms_quanlyhethong.entity.Student;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.repository.StudentRepository;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import com.example.cms_quanlyhethong.until.JwtUntil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Conditional GET: If-None-Match trung ETag → 304 khong body,
+    sua du lieu → ETag doi, tra 200 voi ban moi
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUntil jwtUntil;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private String bearer;
+
+    @BeforeEach
+    void setUp() {
+        // filter chi nhan token cua user ton tai va dang active
+        if (!userRepository.existsByUsername("etag_admin")) {
+            User admin = new User();
+            admin.setUsername("etag_admin");
+            admin.setPassword("{noop}etag_admin");
+            admin.setEmail("etag_admin@example.com");
+            userRepository.save(admin);
+        }
+        bearer = "Bearer " + jwtUntil.generateToken("etag_admin", Set.of("ROLE_ADMIN"));
+    }
+
+    @Test
+    void studentReturns304UntilItChanges() throws Exception {
+        Student student = studentRepository.save(student("SVETAG01"));
+        String url = "/api/students/" + student.getId();
+
+        String etag = mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, bearer).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        Thread.sleep(5); // updatedAt tinh theo ms
+        student.setPhone("0900000000");
+        studentRepository.save(student);
+
+        String newEtag = mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, bearer).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+    }
+
+    @Test
+    void rolesReturn304ForSameCatalogVersion() throws Exception {
+        String etag = mockMvc.perform(get("/api/roles").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/roles").header(HttpHeaders.AUTHORIZATION, bearer).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    private static Student student(String code) {
+        Student student = new Student();
+        student.setStudentCode(code);
+        student.setFullName(code);
+        student.setEmail(code.toLowerCase() + "@example.com");
+        return student;
+    }
+}
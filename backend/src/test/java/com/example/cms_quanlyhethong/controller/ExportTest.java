@@ -0,0 +1,177 @@
+package com.example.cms_quanlyhethong.controller;
+
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.entity.Student;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.repository.RoleRepository;
+import com.example.cms_quanlyhethong.repository.StudentRepository;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import com.example.cms_quanlyhethong.until.JwtUntil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Export user / sinh vien: CSV (header + escape), NDJSON cung ten truong voi header CSV, gzip
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportTest {
+
+    private static final String USER_HEADER = "id,username,email,fullname,isActive,createdAt,updatedAt,roles";
+    private static final String STUDENT_HEADER =
+            "id,studentcode,fullname,dateofbirth,email,phone,address,major,classname,createdAt,updatedAt";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUntil jwtUntil;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private String bearer;
+
+    @BeforeEach
+    void setUp() {
+        bearer = "Bearer " + jwtUntil.generateToken("export_admin", Set.of("ROLE_ADMIN"));
+        if (userRepository.existsByUsername("export_admin")) {
+            return;
+        }
+        // filter chi nhan token cua user ton tai va dang active
+        userRepository.save(user("export_admin", Set.of()));
+        Role a = roleRepository.save(new Role(null, "ROLE_EXPORT_A", "Role dùng cho test", null, new HashSet<>()));
+        Role b = roleRepository.save(new Role(null, "ROLE_EXPORT_B", "Role dùng cho test", null, new HashSet<>()));
+        User user = user("export_u1", Set.of(a, b));
+        user.setFullname("Nguyen, \"Export\"");
+        user.setIsActive(false);
+        userRepository.save(user);
+
+        Student student = new Student();
+        student.setStudentCode("EXPSV01");
+        student.setFullName("Export Student");
+        student.setDateOfBirth(Date.valueOf("2004-05-12"));
+        student.setEmail("export_sv@example.com");
+        student.setPhone("0123456789");
+        student.setAddress("Ha Noi");
+        student.setMajor("CNTT");
+        student.setClassName("IT01");
+        studentRepository.save(student);
+    }
+
+    @Test
+    void userCsvHasHeaderEscapedValuesAndJoinedRoles() throws Exception {
+        MockHttpServletResponse response = export("/api/users/export", "csv", false);
+
+        assertTrue(response.getContentType().startsWith("text/csv"));
+        assertEquals("attachment; filename=\"users.csv\"", response.getHeader("Content-Disposition"));
+        List<String> lines = response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(USER_HEADER, lines.get(0));
+        String row = lines.stream().filter(line -> line.contains(",export_u1,")).findFirst().orElseThrow();
+        assertTrue(row.contains(",\"Nguyen, \"\"Export\"\"\",false,"), row);
+        String roles = row.substring(row.lastIndexOf(',') + 1);
+        assertEquals(Set.of("ROLE_EXPORT_A", "ROLE_EXPORT_B"), Set.of(roles.split("\\|")));
+    }
+
+    @Test
+    void studentCsvAndNdjsonExport() throws Exception {
+        List<String> csv = export("/api/students/export", "csv", false)
+                .getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(STUDENT_HEADER, csv.get(0));
+        String row = csv.stream().filter(line -> line.contains(",EXPSV01,")).findFirst().orElseThrow();
+        assertTrue(row.contains(",Export Student,2004-05-12,export_sv@example.com,0123456789,Ha Noi,CNTT,IT01,"), row);
+
+        MockHttpServletResponse ndjson = export("/api/students/export", "ndjson", false);
+        assertTrue(ndjson.getContentType().startsWith("application/x-ndjson"));
+        JsonNode student = ndjsonRow(ndjson.getContentAsString(StandardCharsets.UTF_8), "studentcode", "EXPSV01");
+        assertEquals("CNTT", student.get("major").asString());
+        assertEquals("IT01", student.get("classname").asString());
+    }
+
+    @Test
+    void ndjsonUsesSameFieldNamesAsCsvHeader() throws Exception {
+        assertSameFields("/api/users/export", "username", "export_u1");
+        assertSameFields("/api/students/export", "studentcode", "EXPSV01");
+
+        JsonNode user = ndjsonRow(export("/api/users/export", "ndjson", false)
+                .getContentAsString(StandardCharsets.UTF_8), "username", "export_u1");
+        assertEquals(false, user.get("isActive").asBoolean());
+        assertNull(user.get("active"));
+    }
+
+    @Test
+    void gzipBodyInflatesToThePlainExport() throws Exception {
+        for (String path : List.of("/api/users/export", "/api/students/export")) {
+            String plain = export(path, "csv", false).getContentAsString(StandardCharsets.UTF_8);
+            MockHttpServletResponse gzip = export(path, "csv", true);
+
+            assertEquals("gzip", gzip.getHeader("Content-Encoding"));
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray()))) {
+                assertEquals(plain, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void unsupportedFormatIsRejected() throws Exception {
+        mockMvc.perform(get("/api/users/export").param("format", "xml").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void assertSameFields(String path, String keyField, String key) throws Exception {
+        String header = export(path, "csv", false).getContentAsString(StandardCharsets.UTF_8)
+                .lines().findFirst().orElseThrow();
+        JsonNode row = ndjsonRow(export(path, "ndjson", false).getContentAsString(StandardCharsets.UTF_8),
+                keyField, key);
+        assertEquals(Set.of(header.split(",")), new HashSet<>(row.propertyNames()), path);
+    }
+
+    private JsonNode ndjsonRow(String body, String keyField, String key) {
+        return body.lines()
+                .map(mapper::readTree)
+                .filter(node -> key.equals(node.get(keyField).asString()))
+                .findFirst().orElseThrow();
+    }
+
+    private MockHttpServletResponse export(String path, String format, boolean gzip) throws Exception {
+        return mockMvc.perform(get(path).param("format", format).param("gzip", String.valueOf(gzip))
+                        .header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private static User user(String username, Set<Role> roles) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}" + username);
+        user.setEmail(username + "@example.com");
+        user.setFullname(username);
+        user.setRoles(new HashSet<>(roles));
+        return user;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.cms_quanlyhethong.controller;
+
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import com.example.cms_quanlyhethong.until.JwtUntil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    GET /api/users: tham so phan trang sai (sort theo field la, cursor hong) → 400, khong phai 500
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserPagingParamsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUntil jwtUntil;
+    @Autowired
+    private UserRepository userRepository;
+
+    private String bearer;
+
+    @BeforeEach
+    void setUp() {
+        // filter chi nhan token cua user ton tai va dang active
+        if (!userRepository.existsByUsername("paging_admin")) {
+            User admin = new User();
+            admin.setUsername("paging_admin");
+            admin.setPassword("{noop}paging_admin");
+            admin.setEmail("paging_admin@example.com");
+            userRepository.save(admin);
+        }
+        bearer = "Bearer " + jwtUntil.generateToken("paging_admin", Set.of("ROLE_ADMIN"));
+    }
+
+    @Test
+    void unknownSortFieldIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/users").param("sort", "password,asc").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Không thể sắp xếp theo field: password"));
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/users").param("cursor", "not-a-cursor").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/users").param("size", "5").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.cms_quanlyhethong.repository;
+
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.entity.Student;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.service.RoleCatalog;
+import com.example.cms_quanlyhethong.service.StudentService;
+import com.example.cms_quanlyhethong.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Cache cap 2 chi con cho Role: doc lai role khong xuong DB.
+    User / Student luon doc DB → thay doi tu node khac (o day: UPDATE thang bang JDBC) thay ngay
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private RoleCatalog roleCatalog;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private StudentService studentService;
+
+    private Statistics statistics;
+    private JdbcTemplate otherNode;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        otherNode = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void repeatedRoleReadsDoNotReachDatabase() {
+        role("ROLE_CACHE_READER");
+        entityManagerFactory.getCache().evictAll();
+
+        statementsOf(() -> roleRepository.findByName("ROLE_CACHE_READER"));
+        assertEquals(0, statementsOf(() -> roleRepository.findByName("ROLE_CACHE_READER")));
+        assertTrue(statistics.getQueryCacheHitCount() > 0);
+    }
+
+    @Test
+    void userAndStudentAreNotCached() {
+        User user = user("cache_other_node", role("ROLE_CACHE_NODE"));
+        Student student = new Student();
+        student.setStudentCode("CACHE001");
+        student.setFullName("Cache Student");
+        student.setEmail("cache_other_node_sv@example.com");
+        student.setUser(user);
+        long studentId = studentRepository.save(student).getId();
+
+        userService.getUserByUsername("cache_other_node");
+        studentService.getStudentById(studentId);
+        assertFalse(entityManagerFactory.getCache().contains(User.class, user.getId()));
+        assertFalse(entityManagerFactory.getCache().contains(Student.class, studentId));
+
+        // Node khac sua truc tiep trong DB, khong qua Hibernate cua node nay
+        otherNode.update("UPDATE users SET full_name = ?, is_active = FALSE WHERE id = ?", "Renamed elsewhere",
+                user.getId());
+        otherNode.update("UPDATE students SET full_name = ? WHERE id = ?", "Student renamed elsewhere", studentId);
+
+        assertEquals("Renamed elsewhere", userService.getUserByUsername("cache_other_node").getFullname());
+        assertEquals("Renamed elsewhere", userService.getUserById(user.getId()).getFullname());
+        // Dang nhap doc is_active moi nhat
+        assertFalse(userRepository.findByUsername("cache_other_node").orElseThrow().getIsActive());
+        assertEquals("Student renamed elsewhere", studentService.getStudentById(studentId).getFullname());
+    }
+
+    @Test
+    void roleChangedElsewhereIsSeenAfterCatalogRefresh() {
+        Role role = role("ROLE_CACHE_DESC");
+        roleRepository.findByName("ROLE_CACHE_DESC");
+
+        otherNode.update("UPDATE roles SET description = ? WHERE id = ?", "changed elsewhere", role.getId());
+        // Lan nap lai dinh ky thay version doi → xoa cache Role cua node nay
+        roleCatalog.refresh();
+
+        assertEquals("changed elsewhere", roleRepository.findByName("ROLE_CACHE_DESC").orElseThrow().getDescription());
+    }
+
+    private long statementsOf(Supplier<?> read) {
+        long before = statistics.getPrepareStatementCount();
+        read.get();
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    private Role role(String name) {
+        Role role = roleRepository.findByName(name)
+                .orElseGet(() -> roleRepository.save(new Role(null, name, name, null, new HashSet<>())));
+        roleCatalog.refresh();
+        return role;
+    }
+
+    private User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}" + username);
+        user.setEmail(username + "@example.com");
+        user.setFullname(username);
+        user.setRoles(new HashSet<>(Set.of(role)));
+        return userRepository.save(user);
+    }
+}
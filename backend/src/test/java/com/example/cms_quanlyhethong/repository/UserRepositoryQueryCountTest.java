@@ -0,0 +1,158 @@
+package com.example.cms_quanlyhethong.repository;
+
+import com.example.cms_quanlyhethong.dto.response.student.StudentResponse;
+import com.example.cms_quanlyhethong.dto.response.user.UserResponse;
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.entity.Student;
+import com.example.cms_quanlyhethong.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    So cau lenh SQL khi doc danh sach user dang UserResponse (projection + role theo IN)
+    khong duoc tang theo so user (khong N+1), khong tao entity
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserRepositoryQueryCountTest {
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private Statistics statistics;
+    private Role adminRole;
+    private Role studentRole;
+    private int created;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        adminRole = em.persist(role("ROLE_ADMIN"));
+        studentRole = em.persist(role("ROLE_STUDENT"));
+    }
+
+    @Test
+    void findAllAsResponse_loadsNoEntitiesAndStatementCountDoesNotGrow() {
+        assertConstantStatements(2, () -> {
+            List<UserResponse> users = userRepository.findAllAsResponse();
+            userRepository.findAllRoleRows();
+            return users;
+        });
+    }
+
+    @Test
+    void findAsResponseByIsActive_statementCountDoesNotGrow() {
+        assertConstantStatements(2, () -> withRoleRows(userRepository.findAsResponseByIsActive(true)));
+    }
+
+    @Test
+    void findAsResponseByRoleName_statementCountDoesNotGrow() {
+        assertConstantStatements(2, () -> withRoleRows(userRepository.findAsResponseByRoleName("ROLE_STUDENT")));
+    }
+
+    // Trang offset / cursor (va tim kiem: index tra id) → 1 query id + 1 query user + 1 query role
+    @Test
+    void idPageThenFetch_statementCountDoesNotGrow() {
+        assertConstantStatements(3, () -> withRoleRows(userRepository.findAsResponseByIdIn(
+                userRepository.findIdPage(PageRequest.of(0, 100)).getContent())));
+        assertConstantStatements(3, () -> withRoleRows(userRepository.findAsResponseByIdIn(
+                userRepository.findIdsAfter(0L, Limit.of(100)))));
+    }
+
+    @Test
+    void studentProjectionPage_sortsWithoutLoadingEntities() {
+        seed(10);
+        em.flush();
+        em.clear();
+        statistics.clear();
+
+        List<StudentResponse> page = studentRepository.findPageAsResponse(
+                PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "studentCode"))).getContent();
+
+        assertEquals(3, page.size());
+        assertEquals("SV8", page.get(0).getStudentcode());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    // Giong UserService.withRoles: role cua dung cac user vua doc, 1 query IN
+    private List<UserResponse> withRoleRows(List<UserResponse> users) {
+        userRepository.findRoleRowsByUserIdIn(users.stream().map(UserResponse::getId).toList());
+        return users;
+    }
+
+    // Chay projection voi 5 user va 40 user: so statement bang expected, khong tang theo so user
+    private void assertConstantStatements(long expected, Supplier<List<UserResponse>> projection) {
+        seed(5);
+        long small = countStatements(projection, 5);
+        seed(35);
+        long large = countStatements(projection, 40);
+
+        assertEquals(expected, small);
+        assertEquals(small, large, "So statement tang theo so user (N+1)");
+    }
+
+    private long countStatements(Supplier<List<UserResponse>> projection, int expectedUsers) {
+        em.flush();
+        em.clear();
+        statistics.clear();
+
+        List<UserResponse> users = projection.get();
+
+        assertTrue(users.size() >= expectedUsers, "Thieu user: " + users.size());
+        assertEquals(0, statistics.getEntityLoadCount(), "Projection khong duoc tao entity");
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seed(int count) {
+        for (int i = 0; i < count; i++) {
+            int n = created++;
+            User user = new User();
+            user.setUsername("user" + n);
+            user.setPassword("hash" + n);
+            user.setEmail("user" + n + "@example.com");
+            user.setFullname("User " + n);
+            user.setIsActive(true);
+            user.getRoles().add(studentRole);
+            if (n % 3 == 0) {
+                user.getRoles().add(adminRole);
+            }
+            em.persist(user);
+
+            if (n % 2 == 0) {
+                Student student = new Student();
+                student.setStudentCode("SV" + n);
+                student.setFullName(user.getFullname());
+                student.setEmail(user.getEmail());
+                student.setUser(user);
+                em.persist(student);
+            }
+        }
+        em.flush();
+    }
+
+    private Role role(String name) {
+        Role role = new Role();
+        role.setName(name);
+        return role;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.cms_quanlyhethong.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryUserSearchIndexTest {
+
+    private InMemoryUserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // repository / transaction manager chi dung khi rebuild luc khoi dong
+        index = new InMemoryUserSearchIndex(null, null);
+        index.index(1L, "nguyenvana", "a@gmail.com", "Nguyễn Văn An");
+        index.index(2L, "tranthib", "b@gmail.com", "Trần Thị Bình");
+        index.index(3L, "dung.le", "dung@school.edu.vn", "Lê Đức Dũng");
+    }
+
+    @Test
+    void search_ignoresVietnameseDiacriticsAndCase() {
+        assertEquals(List.of(2L), index.search("tran thi binh", 0, 10).getIds());
+        assertEquals(List.of(3L), index.search("ĐỨC", 0, 10).getIds());
+        assertEquals(List.of(3L), index.search("duc", 0, 10).getIds());
+    }
+
+    @Test
+    void search_matchesPrefixesAndRequiresAllTerms() {
+        assertEquals(List.of(1L), index.search("nguy an", 0, 10).getIds());
+        assertTrue(index.search("nguy binh", 0, 10).getIds().isEmpty());
+    }
+
+    @Test
+    void search_ranksUsernameAboveEmailAndPaginates() {
+        // "dung" khop nguyen token username + fullname cua user 3, prefix email
+        index.index(4L, "khanh", "dungtest@gmail.com", "Khánh");
+        UserSearchResult result = index.search("dung", 0, 1);
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of(3L), result.getIds());
+        assertEquals(List.of(4L), index.search("dung", 1, 1).getIds());
+    }
+
+    @Test
+    void index_updatesAndRemovesDocuments() {
+        index.index(2L, "tranthib", "b@gmail.com", "Trần Thị Hoa");
+        assertTrue(index.search("binh", 0, 10).getIds().isEmpty());
+        assertEquals(List.of(2L), index.search("hoa", 0, 10).getIds());
+
+        index.remove(2L);
+        assertEquals(0, index.search("tran", 0, 10).getTotal());
+    }
+
+    @Test
+    void resync_appliesChangesMissedByEvents() {
+        // Node khac: sua user 1, xoa user 2, them user 5
+        index.resync(Stream.of(
+                new Object[]{1L, "nguyenvana", "a@gmail.com", "Nguyễn Văn Anh"},
+                new Object[]{3L, "dung.le", "dung@school.edu.vn", "Lê Đức Dũng"},
+                new Object[]{5L, "tranthic", "c@gmail.com", "Trần Thị Cúc"}));
+
+        assertEquals(List.of(1L), index.search("anh", 0, 10).getIds());
+        assertEquals(List.of(5L), index.search("tran", 0, 10).getIds());
+        assertTrue(index.search("binh", 0, 10).getIds().isEmpty());
+        assertEquals(List.of(3L), index.search("duc", 0, 10).getIds());
+    }
+}
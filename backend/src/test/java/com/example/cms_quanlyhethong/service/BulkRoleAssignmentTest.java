@@ -0,0 +1,117 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.dto.request.user.BulkRoleRequest;
+import com.example.cms_quanlyhethong.dto.response.user.BulkRoleResponse;
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.repository.RoleRepository;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Gan / go role hang loat: so cau SQL khong tang theo so user,
+    tao ho so sinh vien con thieu, thu hoi token cua user bi doi role
+ */
+@SpringBootTest
+class BulkRoleAssignmentTest {
+
+    private static final int USERS = 120;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RoleCatalog roleCatalog;
+    @Autowired
+    private UserStatusRegistry userStatusRegistry;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void addStudentRoleByIdsUsesSetBasedStatementsAndProvisionsStudents() {
+        Role student = role("ROLE_STUDENT");
+        List<Long> ids = users("bulk_add", USERS);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BulkRoleResponse response = userService.bulkAssignRole(
+                new BulkRoleRequest(BulkRoleRequest.Action.ADD, student.getId(), new HashSet<>(ids), null));
+
+        assertEquals(USERS, response.matched());
+        assertEquals(USERS, response.changed());
+        assertEquals(USERS, response.studentsCreated());
+        // chon, loc, INSERT ... SELECT, UPDATE, tim user thieu Student, INSERT Student theo batch 50
+        // + cap ma / sequence theo khoi → khong phu thuoc tung user
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements < 30, "statements = " + statements);
+
+        assertTrue(userRepository.findRowsWithoutStudent(ids).isEmpty());
+        assertEquals(USERS, userRepository.findIdsHavingRole(student.getId(), ids).size());
+        // role doi → token cu (sv = 0) bi thu hoi
+        assertFalse(userStatusRegistry.isCurrent("bulk_add0", 0));
+        assertTrue(userStatusRegistry.isCurrent("bulk_add0", 1));
+
+        // gan lai: khong user nao doi
+        BulkRoleResponse again = userService.bulkAssignRole(
+                new BulkRoleRequest(BulkRoleRequest.Action.ADD, student.getId(), new HashSet<>(ids), null));
+        assertEquals(0, again.changed());
+    }
+
+    @Test
+    void removeRoleByFilter() {
+        Role teacher = role("ROLE_BULK_TEACHER");
+        List<Long> ids = users("bulk_remove", 10);
+        userService.bulkAssignRole(
+                new BulkRoleRequest(BulkRoleRequest.Action.ADD, teacher.getId(), new HashSet<>(ids), null));
+
+        BulkRoleResponse response = userService.bulkAssignRole(new BulkRoleRequest(
+                BulkRoleRequest.Action.REMOVE, teacher.getId(), null,
+                new BulkRoleRequest.Filter("ROLE_BULK_TEACHER", null, null, null)));
+
+        assertEquals(10, response.changed());
+        assertEquals(0, response.studentsCreated());
+        assertTrue(userRepository.findIdsHavingRole(teacher.getId(), ids).isEmpty());
+    }
+
+    private Role role(String name) {
+        Role role = roleRepository.findByName(name)
+                .orElseGet(() -> roleRepository.save(new Role(null, name, name, null, new HashSet<>())));
+        roleCatalog.refresh();
+        return role;
+    }
+
+    private List<Long> users(String prefix, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setUsername(prefix + i);
+            user.setPassword("{noop}" + prefix + i);
+            user.setEmail(prefix + i + "@example.com");
+            user.setFullname(prefix + " " + i);
+            user.setRoles(Set.of());
+            users.add(user);
+        }
+        List<Long> ids = new ArrayList<>(count);
+        for (User user : userRepository.saveAll(users)) {
+            ids.add(user.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.dto.response.stats.DashboardStatsResponse;
+import com.example.cms_quanlyhethong.event.StatsChangedEvent;
+import com.example.cms_quanlyhethong.event.UserRolesChangedEvent;
+import com.example.cms_quanlyhethong.repository.StudentRepository;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/*
+    Bo dem dashboard: cong / tru theo su kien (tao, doi role, khoa, xoa kem sinh vien, gan role hang loat)
+    va reconcile khong ghi de su kien xen vao giua luc dem
+ */
+@SpringBootTest
+class DashboardStatsTest {
+
+    private static final StatsChangedEvent.UserFacts STUDENT_ACTIVE =
+            new StatsChangedEvent.UserFacts(true, Set.of("ROLE_DS_STUDENT"));
+    private static final StatsChangedEvent.UserFacts TEACHER_ACTIVE =
+            new StatsChangedEvent.UserFacts(true, Set.of("ROLE_DS_TEACHER"));
+    private static final StatsChangedEvent.UserFacts TEACHER_LOCKED =
+            new StatsChangedEvent.UserFacts(false, Set.of("ROLE_DS_TEACHER"));
+    private static final StatsChangedEvent.StudentFacts IT01 = new StatsChangedEvent.StudentFacts("CNTT", "IT01");
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private RoleCatalog roleCatalog;
+
+    @Test
+    void countersFollowEvents() {
+        // Instance moi, chua reconcile → bat dau tu 0
+        DashboardStats stats = new DashboardStats(userRepository, studentRepository, roleCatalog);
+
+        stats.onStatsChanged(new StatsChangedEvent(null, STUDENT_ACTIVE, null, IT01));
+        DashboardStatsResponse created = stats.snapshot();
+        assertEquals(1, created.getTotalUsers());
+        assertEquals(1, created.getActiveUsers());
+        assertEquals(1, created.getTotalStudents());
+        assertEquals(1L, created.getUsersByRole().get("ROLE_DS_STUDENT"));
+        assertEquals(Map.of("CNTT", 1L), created.getStudentsByMajor());
+        assertEquals(Map.of("IT01", 1L), created.getStudentsByClass());
+
+        // Doi role: tru role cu, cong role moi, tong khong doi
+        stats.onStatsChanged(StatsChangedEvent.user(STUDENT_ACTIVE, TEACHER_ACTIVE));
+        DashboardStatsResponse roleChanged = stats.snapshot();
+        assertEquals(1, roleChanged.getTotalUsers());
+        assertNull(roleChanged.getUsersByRole().get("ROLE_DS_STUDENT"));
+        assertEquals(1L, roleChanged.getUsersByRole().get("ROLE_DS_TEACHER"));
+
+        // Khoa tai khoan: chi doi so user active
+        stats.onStatsChanged(StatsChangedEvent.user(TEACHER_ACTIVE, TEACHER_LOCKED));
+        DashboardStatsResponse locked = stats.snapshot();
+        assertEquals(1, locked.getTotalUsers());
+        assertEquals(0, locked.getActiveUsers());
+        assertEquals(1L, locked.getUsersByRole().get("ROLE_DS_TEACHER"));
+
+        // Xoa user kem sinh vien: ve 0 het, khoa rong bi bo khoi Map
+        stats.onStatsChanged(new StatsChangedEvent(TEACHER_LOCKED, null, IT01, null));
+        DashboardStatsResponse deleted = stats.snapshot();
+        assertEquals(0, deleted.getTotalUsers());
+        assertEquals(0, deleted.getActiveUsers());
+        assertEquals(0, deleted.getTotalStudents());
+        assertNull(deleted.getUsersByRole().get("ROLE_DS_TEACHER"));
+        assertEquals(Map.of(), deleted.getStudentsByMajor());
+        assertEquals(Map.of(), deleted.getStudentsByClass());
+    }
+
+    @Test
+    void bulkRoleEventAddsRoleCountAndProvisionedStudents() {
+        DashboardStats stats = new DashboardStats(userRepository, studentRepository, roleCatalog);
+
+        stats.onUserRolesChanged(new UserRolesChangedEvent("ROLE_DS_TEACHER", true, List.of(1L, 2L, 3L), 2));
+        DashboardStatsResponse added = stats.snapshot();
+        assertEquals(3L, added.getUsersByRole().get("ROLE_DS_TEACHER"));
+        assertEquals(2, added.getTotalStudents());
+        // Sinh vien vua tao chua co lop → nhom "N/A"
+        assertEquals(Map.of("N/A", 2L), added.getStudentsByClass());
+        assertEquals(Map.of("N/A", 2L), added.getStudentsByMajor());
+
+        stats.onUserRolesChanged(new UserRolesChangedEvent("ROLE_DS_TEACHER", false, List.of(1L, 2L), 0));
+        assertEquals(1L, stats.snapshot().getUsersByRole().get("ROLE_DS_TEACHER"));
+    }
+
+    @Test
+    void reconcileRecountsWhenAnEventArrivesDuringTheCount() {
+        AtomicReference<DashboardStats> holder = new AtomicReference<>();
+        AtomicInteger counts = new AtomicInteger();
+        // Chi lan dem dau: 1 su kien duoc cong giua cac cau COUNT → bo ket qua, dem lai
+        DashboardStats stats = new DashboardStats(racingUsers(counts, () -> {
+            if (counts.get() == 1) {
+                holder.get().onStatsChanged(new StatsChangedEvent(null, STUDENT_ACTIVE, null, null));
+            }
+        }), studentRepository, roleCatalog);
+        holder.set(stats);
+
+        stats.reconcile();
+
+        assertEquals(2, counts.get());
+        DashboardStatsResponse snapshot = stats.snapshot();
+        assertNotNull(snapshot.getReconciledAt());
+        assertEquals(userRepository.count(), snapshot.getTotalUsers());
+    }
+
+    @Test
+    void reconcileKeepsIncrementalCountersWhileEventsKeepRacing() {
+        AtomicReference<DashboardStats> holder = new AtomicReference<>();
+        AtomicInteger counts = new AtomicInteger();
+        DashboardStats stats = new DashboardStats(racingUsers(counts, () ->
+                holder.get().onStatsChanged(new StatsChangedEvent(null, STUDENT_ACTIVE, null, null))),
+                studentRepository, roleCatalog);
+        holder.set(stats);
+
+        stats.reconcile();
+
+        // Het luot thu → khong thay the, bo dem van dung theo su kien
+        DashboardStatsResponse snapshot = stats.snapshot();
+        assertNull(snapshot.getReconciledAt());
+        assertEquals(counts.get(), snapshot.getTotalUsers());
+        assertEquals((long) counts.get(), snapshot.getUsersByRole().get("ROLE_DS_STUDENT"));
+    }
+
+    // UserRepository that, chay duringCount moi lan countGroupByRole (gia lap su kien xen vao luc dem)
+    private UserRepository racingUsers(AtomicInteger counts, Runnable duringCount) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("countGroupByRole")) {
+                        counts.incrementAndGet();
+                        duringCount.run();
+                    }
+                    try {
+                        return method.invoke(userRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.cms_quanlyhethong.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    LoginThrottle voi dong ho gia (nano) → kiem tra token bucket, backoff, gioi han bo nho
+ */
+class LoginThrottleTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    // username: 3 lan / phut; ip: 100; sai qua 1 lan → backoff 1s, 2s, 4s ... toi da 8s; het han sau 60s
+    private LoginThrottle throttle(int slots) {
+        return new LoginThrottle(slots, 3, 3, 100, 100, 1, 1000, 8000, 60_000, now::get);
+    }
+
+    @Test
+    void bucketRefillsAfterExhausted() {
+        LoginThrottle throttle = throttle(64);
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("alice", "10.0.0.1");
+        }
+        LoginThrottle.ThrottledException e = assertThrows(LoginThrottle.ThrottledException.class,
+                () -> throttle.acquire("ALICE", "10.0.0.2"));
+        assertEquals(20, e.getRetryAfterSeconds());
+
+        advance(20_000);
+        assertDoesNotThrow(() -> throttle.acquire("alice", "10.0.0.1"));
+    }
+
+    @Test
+    void failuresDoubleTheBackoffAndSuccessClearsIt() {
+        LoginThrottle throttle = new LoginThrottle(64, 100, 100, 100, 100, 1, 1000, 8000, 60_000, now::get);
+        throttle.recordFailure("bob", "10.0.0.1");
+        assertDoesNotThrow(() -> throttle.acquire("bob", "10.0.0.9"));
+
+        long[] expectedSeconds = {1, 2, 4, 8, 8};
+        for (long expected : expectedSeconds) {
+            throttle.recordFailure("bob", "10.0.0.1");
+            assertEquals(expected, assertThrows(LoginThrottle.ThrottledException.class,
+                    () -> throttle.acquire("bob", "10.0.0.9")).getRetryAfterSeconds());
+        }
+
+        advance(8000);
+        throttle.acquire("bob", "10.0.0.9");
+        throttle.recordSuccess("bob", "10.0.0.9");
+        throttle.recordFailure("bob", "10.0.0.9");
+        assertDoesNotThrow(() -> throttle.acquire("bob", "10.0.0.9"));
+    }
+
+    @Test
+    void stateIsBoundedAndExpires() {
+        LoginThrottle throttle = throttle(64);
+        for (int i = 0; i < 10_000; i++) {
+            throttle.acquire("user" + i, "10.1." + (i / 256) + "." + (i % 256));
+        }
+        assertEquals(64, throttle.capacity());
+        assertTrue(throttle.activeEntries() <= throttle.capacity());
+
+        advance(61_000);
+        assertEquals(0, throttle.activeEntries());
+    }
+
+    @Test
+    void blockedIpIsEvictedBeforeAnyBlockedUsername() {
+        // 4 o = 1 nhom: ip + 3 username deu dang bi backoff
+        LoginThrottle throttle = throttle(4);
+        for (String username : new String[]{"a", "b", "c"}) {
+            for (int i = 0; i < 4; i++) {
+                throttle.recordFailure(username, "10.0.0.1");
+            }
+        }
+
+        // Khoa moi lay o cua IP bi khoa (hoac cua nhau), khong bao gio lay o cua username bi khoa
+        for (int i = 0; i < 100; i++) {
+            String ip = "10.0.1." + i;
+            assertDoesNotThrow(() -> throttle.acquire("mallory" + ip, ip));
+        }
+        assertEquals(4, throttle.activeEntries());
+        for (String username : new String[]{"a", "b", "c"}) {
+            assertEquals(4, assertThrows(LoginThrottle.ThrottledException.class,
+                    () -> throttle.acquire(username, "10.0.2.1")).getRetryAfterSeconds());
+        }
+    }
+
+    @Test
+    void setFullOfBlockedUsernamesFallsBackToSharedBucket() {
+        // Sai 1 lan la bi backoff; moi lan sai tu 1 IP khac → IP bi khoa nhuong o, con lai 4 username bi khoa
+        LoginThrottle throttle = new LoginThrottle(4, 3, 3, 100, 100, 0, 1000, 8000, 60_000, now::get);
+        for (String username : new String[]{"a", "b", "c", "d"}) {
+            for (int i = 0; i < 3; i++) {
+                throttle.recordFailure(username, "10.0.0." + username + i);
+            }
+        }
+
+        // Khong con o: IP + username moi dung chung bucket cua nhom (100 token, 2 token / lan dang nhap)
+        for (int i = 0; i < 50; i++) {
+            String ip = "10.0.1." + i;
+            assertDoesNotThrow(() -> throttle.acquire("spray" + ip, ip));
+            throttle.recordFailure("spray" + ip, ip);
+        }
+        assertEquals(1, assertThrows(LoginThrottle.ThrottledException.class,
+                () -> throttle.acquire("eve", "10.0.3.1")).getRetryAfterSeconds());
+
+        // Sai qua bucket chung khong ghi de backoff cua tai khoan
+        advance(2000);
+        assertEquals(2, assertThrows(LoginThrottle.ThrottledException.class,
+                () -> throttle.acquire("a", "10.0.3.1")).getRetryAfterSeconds());
+    }
+
+    @Test
+    void successOnOneAccountDoesNotClearIpFailures() {
+        LoginThrottle throttle = throttle(64);
+        throttle.recordFailure("x1", "10.0.0.7");
+        throttle.recordFailure("x2", "10.0.0.7");
+        assertThrows(LoginThrottle.ThrottledException.class, () -> throttle.acquire("eve", "10.0.0.7"));
+
+        advance(1000);
+        throttle.acquire("eve", "10.0.0.7");
+        throttle.recordSuccess("eve", "10.0.0.7");
+        // So lan sai cua IP chi giam 1 → 1 lan sai nua lai bi backoff
+        throttle.recordFailure("x3", "10.0.0.7");
+        assertThrows(LoginThrottle.ThrottledException.class, () -> throttle.acquire("eve", "10.0.0.7"));
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.config.OffloadingPasswordEncoder;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import com.example.cms_quanlyhethong.until.BCryptCost;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Hash luu voi cost thap hon cost hien tai (test: 5) → hash lai sau khi dang nhap dung,
+    mat khau cu van dang nhap duoc; cost cao hon → giu nguyen (khong ha do manh)
+ */
+@SpringBootTest
+class PasswordRehasherTest {
+
+    @Autowired
+    private PasswordRehasher passwordRehasher;
+    @Autowired
+    private OffloadingPasswordEncoder passwordEncoder;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void hashWithLowerCostIsUpgradedInPlace() {
+        User user = user("rehash_user", new BCryptPasswordEncoder(4).encode("secret"));
+
+        passwordRehasher.rehashIfNeeded(user, "secret").join();
+
+        String stored = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertEquals(passwordEncoder.getBcryptCost(), BCryptCost.of(stored));
+        assertTrue(passwordEncoder.matches("secret", stored));
+        // da dung cost hien tai → khong lam gi nua
+        user.setPassword(stored);
+        assertNull(passwordRehasher.rehashIfNeeded(user, "secret"));
+    }
+
+    @Test
+    void hashWithHigherCostIsNotDowngraded() {
+        String strong = new BCryptPasswordEncoder(6).encode("secret");
+        User user = user("rehash_strong", strong);
+
+        assertFalse(passwordEncoder.upgradeEncoding(strong));
+        assertNull(passwordRehasher.rehashIfNeeded(user, "secret"));
+        assertEquals(strong, userRepository.findById(user.getId()).orElseThrow().getPassword());
+    }
+
+    @Test
+    void costIsReadFromHashAndCalibrationStaysInBounds() {
+        assertEquals(12, BCryptCost.of(new BCryptPasswordEncoder(12).encode("x")));
+        assertEquals(-1, BCryptCost.of("{noop}x"));
+
+        BCryptCost.Calibration calibration = BCryptCost.calibrate(1, 4, 6);
+        assertEquals(4, calibration.cost());
+        assertEquals(6, BCryptCost.calibrate(60_000, 4, 6).cost());
+        // khong thap hon cost da luu trong DB
+        assertEquals(new BCryptCost.Calibration(12, 400), new BCryptCost.Calibration(10, 100).atLeast(12));
+        assertEquals(new BCryptCost.Calibration(10, 100), new BCryptCost.Calibration(10, 100).atLeast(8));
+        user("rehash_max", new BCryptPasswordEncoder(7).encode("x"));
+        assertTrue(Integer.parseInt(userRepository.findMaxBcryptCost()) >= 7);
+    }
+
+    private User user(String username, String hash) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(hash);
+        user.setEmail(username + "@example.com");
+        return userRepository.save(user);
+    }
+}
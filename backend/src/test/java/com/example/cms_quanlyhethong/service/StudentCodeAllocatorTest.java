@@ -0,0 +1,105 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.entity.Student;
+import com.example.cms_quanlyhethong.repository.CodeSequenceRepository;
+import com.example.cms_quanlyhethong.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+    Cap ma theo khoi: 2 allocator (gia lap 2 node) cung 1 bang code_sequences
+    khong bao gio cap trung ma
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StudentCodeAllocatorTest {
+
+    @Autowired
+    private CodeSequenceRepository codeSequenceRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        codeSequenceRepository.deleteAll();
+        studentRepository.deleteAll();
+    }
+
+    @Test
+    void firstCodeContinuesAfterLegacyCodes() {
+        studentRepository.save(student("SV042"));
+        studentRepository.save(student("SV007"));
+
+        assertEquals("SV000043", allocator(10).nextCode());
+    }
+
+    @Test
+    void codesEnteredByHandAfterSeedingAreSkipped() {
+        StudentCodeAllocator allocator = allocator(10);
+        assertEquals("SV000001", allocator.nextCode());
+
+        // Ma nhap tay (admin / import) roi vao khoi da giu cho
+        studentRepository.save(student("SV000002"));
+        studentRepository.save(student("SV000004"));
+
+        assertEquals("SV000003", allocator.nextCode());
+        assertEquals(List.of("SV000005", "SV000006", "SV000007"), allocator.nextCodes(3));
+        studentRepository.save(student("SV000009"));
+        assertEquals(List.of("SV000008", "SV000010", "SV000011"), allocator.nextCodes(3));
+    }
+
+    @Test
+    void concurrentAllocatorsNeverHandOutTheSameCode() throws Exception {
+        StudentCodeAllocator nodeA = allocator(7);
+        StudentCodeAllocator nodeB = allocator(7);
+        int threads = 8;
+        int perThread = 100;
+
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                StudentCodeAllocator allocator = t % 2 == 0 ? nodeA : nodeB;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        codes.add(allocator.nextCode());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(threads * perThread, codes.size());
+    }
+
+    private StudentCodeAllocator allocator(int blockSize) {
+        return new StudentCodeAllocator(codeSequenceRepository, studentRepository, transactionManager, blockSize);
+    }
+
+    private static Student student(String code) {
+        Student student = new Student();
+        student.setStudentCode(code);
+        student.setFullName(code);
+        student.setEmail(code.toLowerCase() + "@example.com");
+        return student;
+    }
+}
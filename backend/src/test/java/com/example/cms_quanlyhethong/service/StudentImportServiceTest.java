@@ -0,0 +1,176 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.config.OffloadingPasswordEncoder;
+import com.example.cms_quanlyhethong.dto.response.student.StudentImportResponse;
+import com.example.cms_quanlyhethong.entity.Role;
+import com.example.cms_quanlyhethong.entity.Student;
+import com.example.cms_quanlyhethong.repository.RoleRepository;
+import com.example.cms_quanlyhethong.repository.StudentRepository;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+    Import sinh vien tu CSV / JSON: cot theo ten, loi tung dong (trung trong file / trong DB,
+    ngay sai), so dong khop voi file, chunk loi khong keo theo chunk khac
+ */
+@SpringBootTest
+class StudentImportServiceTest {
+
+    @Autowired
+    private StudentImportService studentImportService;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RoleCatalog roleCatalog;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        if (roleRepository.findByName("ROLE_STUDENT").isEmpty()) {
+            roleRepository.save(new Role(null, "ROLE_STUDENT", "Student", null, new HashSet<>()));
+        }
+        roleCatalog.refresh();
+    }
+
+    @Test
+    void csvColumnsAreMatchedByHeaderNameInAnyOrder() throws Exception {
+        StudentImportResponse response = studentImportService.importStudents(csv(
+                "Email,ClassName,StudentCode,DateOfBirth,FullName\n"
+                        + "imp_order1@example.com,K65,IMPORD01,2003-04-05,Nguyen Van A\n"));
+
+        assertEquals(1, response.getImported());
+        Student student = studentRepository.findByStudentCode("IMPORD01").orElseThrow();
+        assertEquals("Nguyen Van A", student.getFullName());
+        assertEquals("imp_order1@example.com", student.getEmail());
+        assertEquals("K65", student.getClassName());
+        assertEquals("2003-04-05", new SimpleDateFormat("yyyy-MM-dd").format(student.getDateOfBirth()));
+        // username = ma SV
+        assertTrue(userRepository.findByUsername("IMPORD01").isPresent());
+    }
+
+    @Test
+    void duplicatesInFileAndInDatabaseAreReportedPerRow() throws Exception {
+        studentImportService.importStudents(csv(
+                "studentcode,fullname,email\n"
+                        + "IMPDUP01,Existing,imp_dup_existing@example.com\n"));
+
+        StudentImportResponse response = studentImportService.importStudents(csv(
+                "studentcode,fullname,email\n"
+                        + "IMPDUP02,First,imp_dup2@example.com\n"
+                        + "IMPDUP02,Second,imp_dup2b@example.com\n"
+                        + "IMPDUP01,Already there,imp_dup1b@example.com\n"
+                        + "IMPDUP03,Same email,imp_dup2@example.com\n"));
+
+        assertEquals(4, response.getTotal());
+        assertEquals(1, response.getImported());
+        assertEquals(3, response.getFailed());
+        assertEquals(List.of(2, 3, 4), response.getErrors().stream().map(StudentImportResponse.RowError::getRow).toList());
+        assertTrue(response.getErrors().get(0).getMessage().contains("trùng trong file"));
+        assertTrue(response.getErrors().get(1).getMessage().contains("đã tồn tại"));
+        assertTrue(response.getErrors().get(2).getMessage().contains("Email bị trùng trong file"));
+        assertEquals("First", studentRepository.findByStudentCode("IMPDUP02").orElseThrow().getFullName());
+    }
+
+    @Test
+    void badDateIsReportedWithTheRowNumberOfTheFileIncludingBlankLines() throws Exception {
+        StudentImportResponse response = studentImportService.importStudents(csv(
+                "studentcode,fullname,email,dateofbirth\n"
+                        + "IMPDATE1,Ok,imp_date1@example.com,2002-01-31\n"
+                        + "\n"
+                        + "IMPDATE2,Bad,imp_date2@example.com,2002-02-30\n"));
+
+        assertEquals(1, response.getImported());
+        assertEquals(1, response.getErrors().size());
+        StudentImportResponse.RowError error = response.getErrors().get(0);
+        assertEquals(3, error.getRow());
+        assertEquals("IMPDATE2", error.getStudentcode());
+        assertTrue(error.getMessage().contains("Ngày sinh không hợp lệ"));
+        assertFalse(studentRepository.existsByStudentCode("IMPDATE2"));
+    }
+
+    @Test
+    void jsonFileIsImported() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "students.json", "application/json", ("["
+                + "{\"studentcode\":\"IMPJSON1\",\"fullname\":\"Json One\",\"email\":\"imp_json1@example.com\",\"major\":\"CNTT\"},"
+                + "{\"studentcode\":\"IMPJSON2\",\"fullname\":\"Json Two\"}"
+                + "]").getBytes(StandardCharsets.UTF_8));
+
+        StudentImportResponse response = studentImportService.importStudents(file);
+
+        assertEquals(2, response.getTotal());
+        assertEquals(1, response.getImported());
+        assertEquals(2, response.getErrors().get(0).getRow());
+        assertEquals("CNTT", studentRepository.findByStudentCode("IMPJSON1").orElseThrow().getMajor());
+    }
+
+    @Test
+    void failingChunkDoesNotRollBackOtherChunks() throws Exception {
+        // 600 dong = chunk 1..500 + chunk 501..600; dong 1 qua dai → ca chunk dau bi rollback
+        StringBuilder content = new StringBuilder("studentcode,fullname,email\n");
+        for (int i = 1; i <= 600; i++) {
+            String name = i == 1 ? "x".repeat(150) : "Chunk " + i;
+            content.append("IMPCHK").append(i).append(',').append(name)
+                    .append(",imp_chunk").append(i).append("@example.com\n");
+        }
+
+        StudentImportResponse response = studentImportService.importStudents(csv(content.toString()));
+
+        assertEquals(600, response.getTotal());
+        assertEquals(100, response.getImported());
+        assertEquals(500, response.getFailed());
+        String message = response.getErrors().get(0).getMessage();
+        assertTrue(message.startsWith("Không lưu được"), message);
+        assertFalse(message.toLowerCase().contains("sql"), message);
+        assertFalse(studentRepository.existsByStudentCode("IMPCHK2"));
+        assertTrue(studentRepository.existsByStudentCode("IMPCHK501"));
+        assertTrue(studentRepository.existsByStudentCode("IMPCHK600"));
+    }
+
+    @Test
+    void busyHashPoolFailsTheWholeImportBeforeWritingAnything() {
+        OffloadingPasswordEncoder full = new OffloadingPasswordEncoder(new BCryptPasswordEncoder(4), 4, task -> {
+            throw new RejectedExecutionException("queue full");
+        }, new SimpleMeterRegistry());
+        StudentImportService service = new StudentImportService(studentRepository, userRepository, roleCatalog, full,
+                transactionTemplate, objectMapper, eventPublisher);
+
+        // Khong nuot loi thanh loi tung dong: controller tra 503 + Retry-After, client gui lai nguyen file
+        assertThrows(OffloadingPasswordEncoder.BusyException.class, () -> service.importStudents(csv(
+                "studentcode,fullname,email\n"
+                        + "IMPBUSY1,Busy,imp_busy1@example.com\n")));
+        assertFalse(studentRepository.existsByStudentCode("IMPBUSY1"));
+    }
+
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("file", "students.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.cms_quanlyhethong.service;
+
+import com.example.cms_quanlyhethong.dto.request.user.UserUpdateRequest;
+import com.example.cms_quanlyhethong.entity.User;
+import com.example.cms_quanlyhethong.repository.UserRepository;
+import com.example.cms_quanlyhethong.until.JwtUntil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/*
+    Khoa tai khoan / doi mat khau → token da cap bi tu choi ngay o request tiep theo
+    (registry cap nhat sau commit, filter khong query DB)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserStatusRegistryTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUntil jwtUntil;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserStatusRegistry userStatusRegistry;
+
+    @Test
+    void deactivatingUserRevokesTokenUntilReLogin() throws Exception {
+        User user = userRepository.save(user("revoke_toggle"));
+        String token = jwtUntil.generateToken(user.getUsername(), Set.of("ROLE_ADMIN"), user.getStatusVersion());
+        assertEquals(200, status(token));
+
+        userService.toggleUserStatus(user.getId());
+        assertFalse(userStatusRegistry.isCurrent(user.getUsername(), 0));
+        assertTrue(status(token) >= 400);
+
+        // mo khoa lai: token cu van khong dung duoc, token moi (version moi) thi duoc
+        userService.toggleUserStatus(user.getId());
+        assertTrue(status(token) >= 400);
+        String fresh = jwtUntil.generateToken(user.getUsername(), Set.of("ROLE_ADMIN"), 1);
+        assertEquals(200, status(fresh));
+    }
+
+    @Test
+    void passwordChangeRevokesButProfileEditDoesNot() throws Exception {
+        User user = userRepository.save(user("revoke_password"));
+        String token = jwtUntil.generateToken(user.getUsername(), Set.of("ROLE_ADMIN"), user.getStatusVersion());
+
+        UserUpdateRequest rename = new UserUpdateRequest();
+        rename.setFullname("Tên mới");
+        userService.updateUser(user.getId(), rename);
+        assertEquals(200, status(token));
+
+        UserUpdateRequest password = new UserUpdateRequest();
+        password.setPassword("new-password");
+        userService.updateUser(user.getId(), password);
+        assertTrue(status(token) >= 400);
+    }
+
+    @Test
+    void changeMadeOnAnotherNodeIsPickedUpByPoll() {
+        User user = userRepository.save(user("revoke_other_node"));
+        assertTrue(userStatusRegistry.isCurrent(user.getUsername(), 0));
+
+        // Node khac khoa tai khoan: ghi thang DB, node nay khong nhan event
+        user.setIsActive(false);
+        user.setStatusVersion(user.getStatusVersion() + 1);
+        userRepository.save(user);
+        assertTrue(userStatusRegistry.isCurrent(user.getUsername(), 0));
+
+        userStatusRegistry.pollChanges();
+        assertFalse(userStatusRegistry.isCurrent(user.getUsername(), 0));
+        assertFalse(userStatusRegistry.isCurrent(user.getUsername(), 1));
+    }
+
+    private int status(String token) throws Exception {
+        return mockMvc.perform(get("/api/roles").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}" + username);
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.cms_quanlyhethong.until;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+    Key ring luu file: token song qua restart / node khac, xoay khoa giu overlap roi moi xoa
+ */
+class JwtKeyRingTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tokenSurvivesRestartAndOtherNode() {
+        String path = dir.resolve("keys.p12").toString();
+        JwtKeyRing first = new JwtKeyRing(path, "secret", HOUR, HOUR);
+        String token = jwtUntil(first).generateToken("alice", Set.of("ROLE_STUDENT"));
+
+        // instance moi doc cung file = restart / node khac
+        JwtKeyRing second = new JwtKeyRing(path, "secret", HOUR, HOUR);
+        assertEquals(first.signingKey().kid(), second.signingKey().kid());
+        assertEquals("alice", jwtUntil(second).verifyToken(token).getUsername());
+    }
+
+    @Test
+    void blankPasswordRefusesToStartAndWritesNoKeystore() {
+        Path path = dir.resolve("keys.p12");
+        for (String blank : new String[]{"", "   "}) {
+            assertThrows(RuntimeException.class, () -> new JwtKeyRing(path.toString(), blank, HOUR, HOUR));
+        }
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void rotatedKeyStillVerifiesDuringOverlapThenIsRemoved() throws Exception {
+        String path = dir.resolve("keys.p12").toString();
+        JwtKeyRing withOverlap = new JwtKeyRing(path, "secret", 0, HOUR);
+        String oldKid = withOverlap.signingKey().kid();
+        String token = jwtUntil(withOverlap).generateToken("bob", Set.of());
+
+        Thread.sleep(2);
+        withOverlap.refresh();
+        assertNotEquals(oldKid, withOverlap.signingKey().kid());
+        assertNotNull(jwtUntil(withOverlap).verifyToken(token));
+
+        // het overlap → khoa cu bi xoa khoi file, token ky bang khoa cu khong con hop le
+        Thread.sleep(2);
+        JwtKeyRing noOverlap = new JwtKeyRing(path, "secret", HOUR, 0);
+        assertNull(noOverlap.find(oldKid));
+        assertNull(jwtUntil(noOverlap).verifyToken(token));
+    }
+
+    private static JwtUntil jwtUntil(JwtKeyRing keyRing) {
+        return new JwtUntil(keyRing, new JwtClaimsCache(0));
+    }
+}
@@ -5,12 +5,15 @@
 
 import React, { useState, useEffect } from 'react';
 import { getCurrentUser, logout } from '../services/authService';
+import api from '../services/api';
 import './Dashboard.css';
 
 function Dashboard() {
     // ===== STATE =====
     // Lưu thông tin user đang đăng nhập
     const [user, setUser] = useState(null);
+    // Số liệu tổng hợp từ GET /api/stats (chỉ ADMIN / TEACHER)
+    const [stats, setStats] = useState(null);
 
     // ===== useEffect =====
     // Chạy 1 lần khi component được mount (hiển thị)
@@ -30,8 +33,21 @@ function Dashboard() {
 
         // Lưu user vào state để hiển thị
         setUser(currentUser);
+
+        // Lấy số liệu dashboard (backend trả từ bộ đếm trong bộ nhớ, không kéo danh sách)
+        if (currentUser.roles?.includes('ROLE_ADMIN') || currentUser.roles?.includes('ROLE_TEACHER')) {
+            api.get('/stats')
+                .then((res) => setStats(res.data))
+                .catch((err) => console.error('Lỗi tải số liệu dashboard:', err));
+        }
     }, []); // [] = chỉ chạy 1 lần khi mount
 
+    // Hiển thị số liệu, chưa tải xong thì hiện "..."
+    const show = (value) => (stats ? value ?? 0 : '...');
+
+    // Số lớp: bỏ khóa "N/A" (nhóm sinh viên chưa có lớp, không phải 1 lớp học)
+    const classCount = (byClass) => Object.keys(byClass || {}).filter((name) => name !== 'N/A').length;
+
     // ===== HANDLER: Đăng xuất =====
     const handleLogout = () => {
         // Gọi hàm logout từ authService (xóa token)
@@ -117,21 +133,21 @@ function Dashboard() {
                 </header>
 
                 {/* Stats Cards */}
-                <section className="stats-grid">
                 {(user.roles?.includes('ROLE_ADMIN') || user.roles?.includes('ROLE_TEACHER')) && (
+                <section className="stats-grid">
                     <div className="stat-card">
                         <div className="stat-icon blue">👨‍🎓</div>
                         <div className="stat-info">
                             <h3>Sinh viên</h3>
-                            <p className="stat-number">150</p>
+                            <p className="stat-number">{show(stats?.totalStudents)}</p>
                         </div>
-                    </div>)}
+                    </div>
 
                     <div className="stat-card">
                         <div className="stat-icon green">👨‍🏫</div>
                         <div className="stat-info">
                             <h3>Giáo viên</h3>
-                            <p className="stat-number">12</p>
+                            <p className="stat-number">{show(stats?.usersByRole?.ROLE_TEACHER)}</p>
                         </div>
                     </div>
 
@@ -139,18 +155,18 @@ function Dashboard() {
                         <div className="stat-icon orange">📚</div>
                         <div className="stat-info">
                             <h3>Lớp học</h3>
-                            <p className="stat-number">8</p>
+                            <p className="stat-number">{show(stats && classCount(stats.studentsByClass))}</p>
                         </div>
                     </div>
 
                     <div className="stat-card">
                         <div className="stat-icon purple">📊</div>
                         <div className="stat-info">
-                            <h3>Môn học</h3>
-                            <p className="stat-number">24</p>
+                            <h3>Người dùng hoạt động</h3>
+                            <p className="stat-number">{show(stats?.activeUsers)} / {show(stats?.totalUsers)}</p>
                         </div>
                     </div>
-                </section>
+                </section>)}
 
                 {/* Welcome Section */}
                 <section className="welcome-section">